@@ -2,22 +2,49 @@ package edu.utexas.cs.alr;
 
 import edu.utexas.cs.alr.ast.Expr;
 import edu.utexas.cs.alr.util.ExprUtils;
+import edu.utexas.cs.alr.util.ModelEvaluator;
 import edu.utexas.cs.alr.util.SatUtil;
+import edu.utexas.cs.alr.util.SolverOptions;
 
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 public class SATDriver
 {
     public static void main(String[] args) throws Exception
     {
+        SolverOptions options = SolverOptions.parse(args);
         try
         {
             Expr e = ExprUtils.parseFrom(System.in);
             //Tseitin's Transformation
             Expr cnfExpr = ExprUtils.toTseitin(e);
-            System.out.println(SatUtil.checkSAT(cnfExpr) ? "SAT" : "UNSAT");
+            boolean[] model = SatUtil.findModel(cnfExpr, options);
+            if (model == null)
+            {
+                System.out.println("UNSAT");
+                return;
+            }
+            //the model must satisfy the formula as it was read, before Tseitin
+            //and before preprocessing, or the answer is not given
+            ModelEvaluator evaluator = options.verifyModel || options.printModel ? new ModelEvaluator(e) : null;
+            if (options.verifyModel && !evaluator.satisfies(model))
+            {
+                System.err.println("The model does not satisfy the formula");
+                System.exit(1);
+            }
+            System.out.println("SAT");
+            if (options.printModel)
+            {
+                //only the input variables, Tseitin variables are internal
+                Writer out = new OutputStreamWriter(System.out, StandardCharsets.US_ASCII);
+                SatUtil.printModel(model, evaluator.getNumVariables(), out);
+            }
         }
         catch (IOException ex)
         {
@@ -25,6 +52,11 @@ public class SATDriver
             ex.printStackTrace();
             System.exit(1);
         }
+        catch (UncheckedIOException ex)
+        {
+            System.err.println(ex.getMessage());
+            System.exit(1);
+        }
         catch (ParseCancellationException ex)
         {
             ex.printStackTrace();
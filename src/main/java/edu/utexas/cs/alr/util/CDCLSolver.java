@@ -5,633 +5,2022 @@ package edu.utexas.cs.alr.util;
 import java.util.*;
 
 public class CDCLSolver {
+    // clause reference used for assignments that have no reason clause
+    private static final int NO_REASON = -1;
+
+    // returned by BCP when a binary clause is false, its two literals are in binaryConflict.
+    // Literals implied by a binary clause get the reason -2 - (the other literal),
+    // which is at most -4 since literal codes start at 2
+    private static final int BINARY_CONFLICT = -2;
+
+    // binary clause minimization is only tried on learned clauses that are at most
+    // this long and span at most this many decision levels
+    private static final int BINARY_MINIMIZE_MAX_SIZE = 30;
+    private static final int BINARY_MINIMIZE_MAX_LBD = 6;
+
+    // conflicts between inprocessing rounds, the k-th round comes k times this after the previous one
+    private static final int INPROCESS_INTERVAL = 5000;
+
+    // propagations a probing round may spend, preprocessing gets the first round
+    private static final int PROBE_BUDGET = 200000;
+
+    // propagations a vivification round may spend
+    private static final int VIVIFY_BUDGET = 100000;
+
+    // flips local search may spend per clause of the formula, the k-th search gets k times this
+    private static final int LOCAL_SEARCH_FLIPS_PER_CLAUSE = 20;
+
+    // learned clauses are shared with other solvers when they are at most this
+    // long and span at most this many decision levels
+    private static final int SHARE_MAX_SIZE = 8;
+    private static final int SHARE_MAX_LBD = 3;
+
+    // values stored per variable in the values array
+    private static final byte VALUE_TRUE = 1;
+    private static final byte VALUE_FALSE = -1;
+    private static final byte VALUE_UNASSIGNED = 0;
+
     private boolean verbose;
-    private List<Clause> clauses; // The CNF formula as a list of clauses
-    private List<Clause> learnedClauses; // conflict Clauses learned through implication graph, initially empty
-    private ImplicationGraph implicationGraph; // contains Nodes that contain assigments and antecedents
-    private Stack<Assignment> assignmentStack; // To track variable assignments
-    private Map<Integer, Assignment> assignmentMap;
-    private Map<Integer, Integer> literalScoreMap;
-    private int currentDecisionLevel;
-
-    // Constructor
-    public CDCLSolver(List<Clause> clauses) {
+    private boolean printReductions; // report every learned clause database reduction on stderr
+    private SolverStats stats;
+    private ClauseArena arena; // original and learned clauses packed as literal codes
+    private IntVec clauses; // references of the clauses of the CNF formula
+    private LearnedClauseDatabase learnedClauses; // conflict clauses learned during search, initially empty
+    private VSIDS vsids; // picks the next decision variable
+    private RestartPolicy restartPolicy; // decides when to jump back to level 0
+    private PhaseSelector phases; // value a decision gives each variable
+    private boolean invertPhases; // initial phases pick the less frequent polarity
+    private byte[] presetPhases; // phases given by setPhase() before the first search, null if none
+    private long seed; // randomizes the initial activities unless 0
+    private volatile boolean interrupted; // set from another thread to stop the search
+    private long conflictLimit; // solve() gives up after this many conflicts
+    private boolean limitReached; // the last solve() stopped at the conflict limit
+    private boolean pureLiterals; // pure literals may be assigned, only sound if no clauses are added later
+    private IntVec core; // assumptions responsible for the last UNSAT answer under assumptions
+    private boolean initialized; // watches are built and level 0 is propagated
+    private boolean inconsistent; // the formula was found unsatisfiable at level 0
+    private ClauseExchange.Port sharing; // connection to solvers running in parallel, or null
+    private DratProof proof; // proof attached to the arena, or null
+    private int loggedUnits; // level 0 trail literals up to here are units in the proof
+    private boolean refutationLogged; // the empty clause is in the proof
+    private int levelZeroConflict; // the clause found false at level 0, NO_REASON if unknown
+
+    // LRAT state, only used with an LRAT proof
+    private boolean lrat;
+    private int[] unitIds; // per variable, id of the unit clause of its level 0 value
+    private HashMap<Long, Integer> binaryIds; // ids of the binary clauses by their two literals
+    private IntVec binaryRemoved; // literals binary minimization removed from the learned clause
+    private IntVec reasonIds; // scratch list for the hints of a learned clause
+    private boolean subsume; // subsumption and strengthening during inprocessing
+    private boolean probing; // failed literal probing before search and during inprocessing
+    private boolean vivifyLearned; // vivification of learned clauses during inprocessing
+    private boolean vivifyOriginal; // vivification of the clauses of the formula as well
+    private long nextInprocess; // conflict count at which the next inprocessing round is due
+    private boolean hybridSearch; // local search after every rephase, its best assignment becomes the phases
+    private boolean probSat; // pick rule of that local search, ProbSAT or WalkSAT
+    private int numVariables; // highest variable id appearing in the formula
+    // for each literal code, the clauses watching that literal as (cref, blocker) pairs. The
+    // blocker is some other literal of the clause, if it is true the clause is satisfied
+    private IntVec[] watches;
+    private IntVec[] binaries; // for each literal code, the literals implied when it becomes false
+    private int[] binaryConflict; // the two literals of the last false binary clause
+
+    // assignment store, all indexed by variable
+    private byte[] values; // VALUE_TRUE, VALUE_FALSE or VALUE_UNASSIGNED
+    private int[] levels; // decision level the variable was assigned at
+    private int[] reasons; // clause that implied the variable, a binary reason, or NO_REASON for decisions and level 0 facts
+
+    // the trail holds the assigned literals in assignment order, trailLimits
+    // holds the trail index at which each decision level starts
+    private int[] trail;
+    private int trailSize;
+    private IntVec trailLimits;
+    private int propagationHead; // index of the next literal on the trail BCP has to process
+
+    // conflict analysis scratch space, reused for every conflict
+    private boolean[] seen; // variables already visited while deriving the current learned clause
+    private IntVec seenVariables; // the variables marked in seen, so they can be cleared again
+    private IntVec learnedLiterals; // the learned clause under construction
+    private IntVec minimizeStack; // reasons still to visit while checking a literal is redundant
+    private int[] stamps; // per variable or per level marks, a mark is current when it equals stamp
+    private int stamp;
+    private int learnedLbd; // number of distinct decision levels in the last learned clause
+    private int backtrackLevel; // level the last analyzed conflict jumps back to
+
+    // probing state
+    private int probeVariable; // where the next probing round continues
+    private int[] probeMarks; // per literal code, equals stamp when the first probe of a variable implied it
+    private IntVec probeImplied; // literals implied by both probes of a variable
+    private IntVec hyperBinaries; // pairs of literals of the hyper-binary resolvents of a probe
+    private IntVec vivifyLiterals; // the clause being vivified, propagation may reorder it in the arena
+    private int vivifying; // reference of the clause being vivified, propagation ignores it
+
+    // Constructor, every clause already in the arena is part of the formula
+    public CDCLSolver(ClauseArena arena) {
+        this(arena, new SolverOptions());
+    }
+
+    public CDCLSolver(ClauseArena arena, SolverOptions options) {
+        this(arena, maxVariable(arena), options);
+        // a pure literal is a RAT clause, LRAT hints are only derived for RUP clauses
+        this.pureLiterals = !lrat;
+    }
+
+    // Constructor for incremental use: the formula starts out empty and clauses over
+    // the variables 1..numVariables are added with addClause(), also between calls
+    // of solve(). Pure literals are never assigned, a clause added later could
+    // contain their negation
+    public CDCLSolver(int numVariables, SolverOptions options) {
+        this(new ClauseArena(), numVariables, options);
+    }
+
+    private CDCLSolver(ClauseArena arena, int numVariables, SolverOptions options) {
+        if (arena.isFrozen()) {
+            throw new IllegalArgumentException("A frozen arena is solved through an arena layered on top of it");
+        }
         this.verbose = false;
-        this.clauses = clauses;
-        this.learnedClauses = new ArrayList<>();
-        this.implicationGraph = new ImplicationGraph();
-        this.assignmentStack = new Stack<>();
-        this.assignmentMap = new HashMap<>();
-        this.literalScoreMap = new HashMap<>();
-        this.currentDecisionLevel = 0;
+        this.printReductions = options.printStats;
+        this.stats = new SolverStats();
+        this.arena = arena;
+        this.clauses = new IntVec();
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            clauses.add(cref);
+        }
+        this.learnedClauses = new LearnedClauseDatabase(arena);
+        this.numVariables = numVariables;
+        this.values = new byte[numVariables + 1];
+        this.levels = new int[numVariables + 1];
+        this.reasons = new int[numVariables + 1];
+        this.vsids = new VSIDS(numVariables, options.variableDecay);
+        this.restartPolicy = options.createRestartPolicy();
+        this.phases = new PhaseSelector(numVariables, options.targetPhases, options.rephase);
+        this.invertPhases = options.invertPhases;
+        this.seed = options.seed;
+        this.interrupted = false;
+        this.conflictLimit = Long.MAX_VALUE;
+        this.limitReached = false;
+        this.pureLiterals = false;
+        this.core = new IntVec();
+        this.initialized = false;
+        this.inconsistent = false;
+        this.proof = arena.getProof();
+        this.loggedUnits = 0;
+        this.refutationLogged = false;
+        this.levelZeroConflict = NO_REASON;
+        this.lrat = proof != null && proof.isLrat();
+        if (lrat) {
+            this.unitIds = new int[numVariables + 1];
+            this.binaryIds = new HashMap<>();
+            this.binaryRemoved = new IntVec();
+            this.reasonIds = new IntVec();
+        }
+        // LRAT hints are only derived by conflict analysis, inprocessing stays off
+        this.subsume = options.subsume && !lrat;
+        this.probing = options.probe && !lrat;
+        this.vivifyLearned = !"off".equals(options.vivify) && !lrat;
+        this.vivifyOriginal = "all".equals(options.vivify) && !lrat;
+        this.nextInprocess = INPROCESS_INTERVAL;
+        this.hybridSearch = "hybrid".equals(options.localSearch);
+        this.probSat = options.probSat;
+        this.trail = new int[numVariables + 1];
+        this.trailSize = 0;
+        this.trailLimits = new IntVec();
+        this.propagationHead = 0;
+        this.seen = new boolean[numVariables + 1];
+        this.seenVariables = new IntVec();
+        this.learnedLiterals = new IntVec();
+        this.minimizeStack = new IntVec();
+        this.stamps = new int[numVariables + 1];
+        this.stamp = 0;
+        this.binaryConflict = new int[2];
+        this.probeVariable = 1;
+        this.probeMarks = new int[2 * (numVariables + 1)];
+        this.probeImplied = new IntVec();
+        this.hyperBinaries = new IntVec();
+        this.vivifyLiterals = new IntVec();
+        this.vivifying = NO_REASON;
+    }
+
+    // highest variable id appearing in the clauses of an arena
+    private static int maxVariable(ClauseArena arena) {
+        int maxVariable = 0;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            for (int k = 0; k < arena.size(cref); k++) {
+                maxVariable = Math.max(maxVariable, Literal.variable(arena.literal(cref, k)));
+            }
+        }
+        return maxVariable;
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    // Asks a running solve() to stop, it then returns false without an answer.
+    // Can be called from any thread
+    public void interrupt() {
+        interrupted = true;
+    }
+
+    // true if solve() stopped because of interrupt() or the conflict limit, its
+    // result means nothing then
+    public boolean isInterrupted() {
+        return interrupted || limitReached;
+    }
+
+    // solve() stops once the solver has seen this many conflicts in total
+    public void setConflictLimit(long conflicts) {
+        this.conflictLimit = conflicts;
+    }
+
+    // Shares short learned clauses with other solvers through port, must be
+    // called before solve(). All of them have to solve the same formula
+    public void shareClauses(ClauseExchange.Port port) {
+        this.sharing = port;
+    }
+
+    // Makes decisions on variable give it value until search saves another phase,
+    // e.g. to start from an assignment local search found. Phases set before the
+    // first solve() replace the initial ones based on occurrence counts.
+    // Variables that do not occur in the formula are ignored
+    public void setPhase(int variable, boolean value) {
+        if (variable < 1) {
+            throw new IllegalArgumentException("Variable " + variable + " is not positive");
+        }
+        if (variable > numVariables) {
+            return;
+        }
+        if (initialized) {
+            phases.setSaved(variable, !value);
+            return;
+        }
+        if (presetPhases == null) {
+            presetPhases = new byte[numVariables + 1];
+        }
+        presetPhases[variable] = value ? VALUE_TRUE : VALUE_FALSE;
+    }
+
+    // value of a variable in the model found by solve(), variables that do not
+    // occur in the formula are false
+    public boolean modelValue(int variable) {
+        return variable <= numVariables && values[variable] == VALUE_TRUE;
     }
 
     // Main method to solve the SAT problem
     public boolean solve() {
+        return solve(new int[0]);
+    }
 
-        // pre-process
+    // The assumptions of the last solve() that together make the formula
+    // unsatisfiable, a subset of them. Empty if the formula is unsatisfiable
+    // without any assumption, or if solve() did not return UNSAT
+    public int[] getCore() {
+        return Arrays.copyOf(core.rawData(), core.size());
+    }
 
-        // Run BCP
-        Clause initialConflict = unitPropagation();
-        if (initialConflict != null) {
-            if (verbose) {
-                System.out.println("Found initial conflict during BCP in pre-processesor step");
+    // Tries to make an UNSAT core smaller. Each literal in turn is left out and
+    // the rest is solved again with at most conflictsPerCheck conflicts. If
+    // that is still UNSAT the literal is dropped, together with anything else
+    // the new core does not need. If not, the literal is kept. Stops when
+    // conflictBudget conflicts are used up. Returns the smaller core, which is
+    // still UNSAT, and leaves it in getCore()
+    public int[] shrinkCore(int[] assumptions, long conflictsPerCheck, long conflictBudget) {
+        long savedLimit = conflictLimit;
+        long budgetEnd = stats.conflicts + conflictBudget;
+        IntVec current = new IntVec();
+        for (int literal : assumptions) {
+            current.add(literal);
+        }
+        int position = 0;
+        while (position < current.size() && stats.conflicts < budgetEnd) {
+            int[] candidate = new int[current.size() - 1];
+            for (int k = 0, c = 0; k < current.size(); k++) {
+                if (k != position) {
+                    candidate[c++] = current.get(k);
+                }
             }
-            return false;
+            conflictLimit = Math.min(stats.conflicts + conflictsPerCheck, budgetEnd);
+            boolean satisfiable = solve(candidate);
+            if (satisfiable || isInterrupted()) {
+                position++; // the literal is needed, or it could not be shown that it is not
+                continue;
+            }
+            // keep the literals of the new core in their old order, the ones before
+            // position were checked already
+            stamp++;
+            for (int k = 0; k < core.size(); k++) {
+                stamps[Literal.variable(core.get(k))] = stamp;
+            }
+            int kept = 0;
+            int keptBefore = 0;
+            for (int k = 0; k < current.size(); k++) {
+                if (k != position && stamps[Literal.variable(current.get(k))] == stamp) {
+                    keptBefore += k < position ? 1 : 0;
+                    current.set(kept++, current.get(k));
+                }
+            }
+            current.shrink(kept);
+            position = keptBefore;
         }
-        // Create Map of Literal Scores
-        literalScoreMap = mapVariableToScore();
-        if (verbose)
-            printVariableToScore(literalScoreMap);
+        conflictLimit = savedLimit;
+        limitReached = false;
+        core.clear();
+        for (int k = 0; k < current.size(); k++) {
+            core.add(current.get(k));
+        }
+        return getCore();
+    }
 
-        // Apply pure literal propagation
-        List<Integer> pureLiterals = lookForPureLiterals(literalScoreMap);
-        removeClausesContainingPureLiterals(pureLiterals);
+    // Adds a clause of literal codes to the formula. Between calls of solve() the
+    // solver goes back to level 0, the clause is simplified by the level 0
+    // assignment and propagated, everything learned so far is kept. Returns false
+    // if the formula has become unsatisfiable
+    public boolean addClause(int... literals) {
+        if (proof != null) {
+            throw new IllegalStateException("Clauses cannot be added while a proof is logged,"
+                    + " it would not know them as part of the formula");
+        }
+        if (pureLiterals && initialized) {
+            throw new IllegalStateException("Clauses cannot be added after pure literals were assigned,"
+                    + " use the incremental constructor");
+        }
+        learnedLiterals.clear();
+        for (int literal : literals) {
+            if (Literal.variable(literal) < 1 || Literal.variable(literal) > numVariables) {
+                throw new IllegalArgumentException("Variable " + Literal.variable(literal)
+                        + " is outside of 1.." + numVariables);
+            }
+            learnedLiterals.add(literal);
+        }
+        if (!CNFConverter.normalizeClause(learnedLiterals, probeMarks, ++stamp)) {
+            return !inconsistent; // tautology
+        }
+        if (!initialized) {
+            clauses.add(arena.allocate(learnedLiterals, false));
+            return true;
+        }
+
+        backtrack(0);
+        if (inconsistent) {
+            return false;
+        }
+        int kept = 0;
+        for (int k = 0; k < learnedLiterals.size(); k++) {
+            int literal = learnedLiterals.get(k);
+            if (literalIsTrue(literal)) {
+                return true; // satisfied by a level 0 fact for good
+            }
+            if (!literalIsAssigned(literal)) {
+                learnedLiterals.set(kept++, literal);
+                vsids.insert(Literal.variable(literal));
+            }
+        }
+        learnedLiterals.shrink(kept);
+        if (kept == 0) {
+            inconsistent = true;
+            return false;
+        }
+        int cref = arena.allocate(learnedLiterals, false);
+        clauses.add(cref);
+        if (kept == 1) {
+            assign(learnedLiterals.get(0), NO_REASON);
+        } else if (kept == 2) {
+            addBinary(learnedLiterals.get(0), learnedLiterals.get(1));
+        } else {
+            watchClause(cref);
+        }
+        if (unitPropagation() != NO_REASON) {
+            inconsistent = true;
+            return false;
+        }
+        return true;
+    }
 
-        // Set numbers for clauses in final clause list
-        int idx = 0;
-        for (Clause clause : clauses) {
-            clause.setClauseNumber(idx);
-            idx++;
+    // Solves the formula under assumptions, literals that have to be true. The
+    // i-th assumption is decided at level i + 1 before any real decision, a level
+    // stays empty if its assumption is already true. Conflict analysis and
+    // backtracking treat these pseudo-decision levels like any other, so when
+    // backtracking undoes assumptions they are simply decided again. Returns
+    // false if the formula is unsatisfiable or an assumption is false, and
+    // then unsatisfiable under the assumptions.
+    // The solver can be called again, with other assumptions or after adding
+    // clauses. Each call starts at level 0 and keeps the learned clauses,
+    // activities and phases of the previous ones
+    public boolean solve(int... assumptions) {
+        core.clear();
+        // pure literals are only sound without assumptions, one could be assumed false
+        if (!initialize(pureLiterals && assumptions.length == 0)) {
+            return refuted();
+        }
+        backtrack(0);
+        limitReached = false;
+        // empty assumption levels can make the level count exceed the variable count
+        if (stamps.length <= numVariables + assumptions.length) {
+            stamps = Arrays.copyOf(stamps, numVariables + assumptions.length + 1);
         }
-        //////// done with pre-process
 
         while (true) {
-            /*
-             * //Checks learned clauses to see if it contains contraditory unit clauses
-             * if (hasContradictoryUnitClause(learnedClauses)) {
-             * System.out.println("Has contradictory unit clauses in learned clause");
-             * return false;
-             * }
-             */
-            boolean decisionMade = makeDecision();
+            if (interrupted) {
+                return false;
+            }
+            if (stats.conflicts >= conflictLimit) {
+                limitReached = true;
+                return false;
+            }
+            if (restartPolicy.shouldRestart()) {
+                restart();
+                if (!importSharedClauses()) {
+                    return refuted();
+                }
+            }
+            if ((subsume || probing || vivifyLearned) && stats.conflicts >= nextInprocess && !inprocess()) {
+                return refuted();
+            }
+            if (learnedClauses.shouldReduce(stats.conflicts)) {
+                reduceLearnedClauses();
+            }
+            if (phases.shouldRephase(stats.conflicts)) {
+                phases.rephase(stats.conflicts);
+                stats.rephases++;
+                if (hybridSearch) {
+                    localSearchPhases();
+                }
+            }
+            boolean decisionMade;
+            if (decisionLevel() < assumptions.length) {
+                int assumption = assumptions[decisionLevel()];
+                if (literalIsAssigned(assumption) && !literalIsTrue(assumption)) {
+                    analyzeFinal(assumption);
+                    return false;
+                }
+                trailLimits.add(trailSize);
+                if (literalIsTrue(assumption)) {
+                    continue;
+                }
+                assign(assumption, NO_REASON);
+                decisionMade = true;
+            } else {
+                decisionMade = makeDecision();
+            }
 
             if (!decisionMade) { // No decision made, so its either satisfied currently, or it cant be satisfied
                 return isSatisfied();
             }
-            /*
-             * //check if the decision caused a conflict
-             * Clause falseClause = getFalseClause();
-             * if (falseClause != null) {
-             * implicationGraph.addConflictNode(assignmentStack.peek(), null, falseClause);
-             * Clause learnedClause = analyzeConflict();
-             * }
-             * 
-             * if (falseClause == null) {
-             */
             Boolean foundConflict = false;
             do {
                 // Start the BCP process
-                Clause conflict = unitPropagation();// if conflict encountered, returns a clause
-                if (conflict != null) { // BCP lead to a conflict
+                int conflict = unitPropagation();// if conflict encountered, returns a clause
+                if (conflict != NO_REASON) { // BCP lead to a conflict
                     foundConflict = true;
-                    if (currentDecisionLevel <= 0) {
-                        return false; // Conflict at base level, so UNSAT
+                    stats.conflicts++;
+                    if (decisionLevel() == 0) {
+                        levelZeroConflict = conflict;
+                        return refuted(); // Conflict at base level, so UNSAT
                     }
                     // Analyze conflict to create learned clause
-                    Clause learnedClause = analyzeConflict();
-
-                    updateLiteralScoreMap(learnedClause);
-
-                    backtrack(learnedClause);
-                    if (currentDecisionLevel < 0) {
-                        return false;
+                    IntVec learnedClause = analyzeConflict(conflict);
+                    if (lrat) {
+                        addLearnedHints(conflict);
                     }
+                    vsids.decayAll();
+                    learnedClauses.decayAll();
+
+                    // everything below the conflict level was assigned without a conflict
+                    phases.updateTargetAndBest(trail, trailLimits.get(decisionLevel() - 1));
+                    backtrack(backtrackLevel);
+                    // the learned clause is now unit, assert its remaining literal
+                    addLearnedClause(learnedClause);
+                    restartPolicy.onConflict(learnedLbd);
 
                     // For debugging
                     if (verbose)
-                        printAssignmentStack();
+                        printTrail();
 
                 } else {
                     foundConflict = false;
-                    if (isSatisfied()) {
-                        return true; // All variables assigned without conflict, so SAT
-                    }
                 }
             } while (foundConflict == true);
         }
-        /* } */
     }
 
-    // currently finds first unassigned literal from first unsatisfied clause
-    private boolean makeDecision() {
-
-        int maxScore = Integer.MIN_VALUE;
-        int decisionVariable = -9999;
-
-        for (int variable : literalScoreMap.keySet()) {
-            // Check if the variable is not already assigned
-            if (!assignmentMap.containsKey(Math.abs(variable))) {
-                int score = literalScoreMap.get(variable);
-                if (score > maxScore) {
-                    maxScore = score;
-                    decisionVariable = variable;
-                }
+    // The formula is unsatisfiable at level 0, the proof ends with the empty clause
+    private boolean refuted() {
+        inconsistent = true;
+        if (proof != null && !refutationLogged) {
+            refutationLogged = true;
+            if (lrat) {
+                addConflictHints(levelZeroConflict);
             }
+            proof.add();
         }
-        boolean isNegated = (decisionVariable < 0); // Sets isNegated to True if decisionVar < 0
-        Literal decisionLiteral = new Literal(Math.abs(decisionVariable), isNegated);
-        /*
-         * //look for first unassigned literal in the first unsatisfied clause of
-         * learned clauses
-         * Literal decisionLiteral =
-         * findUnassignedLiteralFromUnsatisfiedClauses(learnedClauses);
-         * 
-         * if (decisionLiteral == null) {
-         * 
-         * // If no suitable literal is found in learned clauses, check original clauses
-         * decisionLiteral = findUnassignedLiteralFromUnsatisfiedClauses(clauses);
-         * }
-         */
-
-        if (decisionLiteral != null) {
-            // Check if a satisfying decision would
-            // falsify a unit clause in the learnedClauses and clauses list
-            boolean value = !decisionLiteral.isNegated();
-            /*
-             * if (wouldFalsifyUnitClause(decisionLiteral)) {
-             * value = decisionLiteral.isNegated();
-             * }
-             * else {
-             * value = !decisionLiteral.isNegated();
-             * }
-             */
-
-            currentDecisionLevel++;
-            // Add new assignment to stack
-            Assignment decision = new Assignment(decisionLiteral, value, currentDecisionLevel,
-                    Assignment.AssignmentType.DECISION);
-            assignmentStack.push(decision);
-            assignmentMap.put(Math.abs(decisionLiteral.getVariable()), decision);
-            // Add assignment to implication graph
-            implicationGraph.addDecision(decision);
-            return true; // A decision has been made
-        }
-
-        // No decision could be made, indicating all clauss are assigned
-        // formula could be satisfied or a deadlock situation
         return false;
     }
 
-    // function that starts BCP
-    // if a conflict is detected it returns the unit clause
-    // in which a conflict is occuring
-    private Clause unitPropagation() {
-        boolean changeMade;
-        int idx = 0;
-        while (idx < getAllClauses().size()) { // loop through all clauses, learned and original
-            Clause clause = getAllClauses().get(idx);
-            idx++;
-            // skip satisfied clauses
+    // LRAT hints of the empty clause: the units of the literals of the level 0
+    // conflict, then the conflict itself
+    private void addConflictHints(int conflict) {
+        IntVec hints = proof.hints();
+        if (conflict == BINARY_CONFLICT) {
+            hints.add(unitIds[Literal.variable(binaryConflict[0])]);
+            hints.add(unitIds[Literal.variable(binaryConflict[1])]);
+            hints.add(binaryId(binaryConflict[0], binaryConflict[1]));
+        } else if (conflict >= 0) {
+            for (int k = 0; k < arena.size(conflict); k++) {
+                hints.add(unitIds[Literal.variable(arena.literal(conflict, k))]);
+            }
+            hints.add(arena.id(conflict));
+        }
+    }
 
-            if (clauseIsSatisfied(clause)) {
+    // LRAT hints of the clause conflict analysis just learned, computed before
+    // backtracking. With all its literals false, and the literals binary
+    // minimization removed made false by their binary clauses, the reasons of
+    // the other literals the conflict depends on become unit in trail order and
+    // the conflict clause ends up false. Those reasons are found by following
+    // them back from the conflict, which stops at the false literals and at
+    // level 0, where the unit clauses of the values come first in the hints
+    private void addLearnedHints(int conflict) {
+        IntVec hints = proof.hints();
+        hints.clear();
+        reasonIds.clear();
+        stamp++;
+        for (int k = 0; k < learnedLiterals.size(); k++) {
+            stamps[Literal.variable(learnedLiterals.get(k))] = stamp;
+        }
+        int asserting = learnedLiterals.get(0);
+        for (int i = 0; i < binaryRemoved.size(); i++) {
+            int removed = binaryRemoved.get(i);
+            stamps[Literal.variable(removed)] = stamp;
+            reasonIds.add(binaryId(asserting, Literal.negate(removed)));
+        }
+        int conflictId;
+        if (conflict == BINARY_CONFLICT) {
+            markForHints(binaryConflict[0]);
+            markForHints(binaryConflict[1]);
+            conflictId = binaryId(binaryConflict[0], binaryConflict[1]);
+        } else {
+            for (int k = 0; k < arena.size(conflict); k++) {
+                markForHints(arena.literal(conflict, k));
+            }
+            conflictId = arena.id(conflict);
+        }
+        int binaryCount = reasonIds.size();
+        for (int i = trailSize - 1; i >= trailLimits.get(0); i--) {
+            int literal = trail[i];
+            int variable = Literal.variable(literal);
+            if (!seen[variable]) {
                 continue;
             }
-
-            if (isUnitClause(clause)) { // clause is an unsatisfied unit clause
-                Literal unitLiteral = getUnassignedLiteral(clause);
-                // check if assigning the unitLiteral would cause a conflict
-                if (unitLiteral == null || isConflict(unitLiteral, clause)) {
-                    return clause; // Conflict conflict clause
+            int reason = reasons[variable];
+            if (isBinaryReason(reason)) {
+                reasonIds.add(binaryId(literal, binaryReasonLiteral(reason)));
+                markForHints(binaryReasonLiteral(reason));
+            } else if (reason >= 0) {
+                reasonIds.add(arena.id(reason));
+                for (int k = 1; k < arena.size(reason); k++) {
+                    markForHints(arena.literal(reason, k));
                 }
-
-                // perform unit propogation on the other clauses
-                propagate(unitLiteral, clause);
-                idx = 0;
-                changeMade = true;
+            } else {
+                throw new IllegalStateException("Learned clause does not cover decision " + Literal.toString(literal));
             }
         }
-        return null; // No conflicts detected
+        for (int i = 0; i < binaryCount; i++) {
+            hints.add(reasonIds.get(i));
+        }
+        for (int i = reasonIds.size() - 1; i >= binaryCount; i--) {
+            hints.add(reasonIds.get(i));
+        }
+        hints.add(conflictId);
+        for (int i = 0; i < seenVariables.size(); i++) {
+            seen[seenVariables.get(i)] = false;
+        }
+        seenVariables.clear();
+        binaryRemoved.clear();
     }
 
-    // This function essentially analyzes the implcation
-    // to create a new learned clause, and returns that clause as well as adds it
-    // to learnedClause list object
-    private Clause analyzeConflict() {
-        if (verbose)
-            System.out.println("Analyzing conflict...");
-        // Get conflict node from implication graph
-        Node conflictNode = implicationGraph.getConflictNode();
-        if (conflictNode != null) {
-            if (verbose)
-                System.out.println("Got conflict node...");
-        }
-
-        // use the conflict node and UIP to create a new clause to add to the
-        // learnedClauses list
-        Clause learnedClause = implicationGraph.createLearnedClause(conflictNode, assignmentStack);
-        if (learnedClause != null) {
-            // Add learned clause to learnedClause map
-            learnedClauses.add(0, learnedClause);
-            if (verbose) {
-                System.out.println("Added learned clause to list");
-                CNFConverter.printClauses(learnedClauses);
-            }
+    // Marks the variable of a false literal whose reason the hints need, unless
+    // the literal is false by assumption. Level 0 values add their unit right away
+    private void markForHints(int literal) {
+        int variable = Literal.variable(literal);
+        if (stamps[variable] == stamp || seen[variable]) {
+            return;
+        }
+        seen[variable] = true;
+        seenVariables.add(variable);
+        if (levels[variable] == 0) {
+            proof.hints().add(unitIds[variable]);
+        }
+    }
+
+    // Gives a variable assigned at level 0 its unit clause: the reason itself if
+    // it is a unit, otherwise a new one whose hints are the units of the other
+    // literals of the reason and the reason
+    private void addLevelZeroUnit(int literal, int reason) {
+        int variable = Literal.variable(literal);
+        if (reason >= 0 && arena.size(reason) == 1) {
+            unitIds[variable] = arena.id(reason);
+            return;
+        }
+        IntVec hints = proof.hints();
+        hints.clear();
+        if (isBinaryReason(reason)) {
+            hints.add(unitIds[Literal.variable(binaryReasonLiteral(reason))]);
+            hints.add(binaryId(literal, binaryReasonLiteral(reason)));
         } else {
-            System.err.println("Error creating learned clause from implication graph");
-            System.exit(1);
+            for (int k = 1; k < arena.size(reason); k++) {
+                hints.add(unitIds[Literal.variable(arena.literal(reason, k))]);
+            }
+            hints.add(arena.id(reason));
         }
-        return learnedClause;
+        unitIds[variable] = proof.add(literal);
     }
 
-    // Backtrack to a decision level that makes the new learned clause an asserting
-    // clause
-    // in the next decision step
-    private void backtrack(Clause learnedClause) {
-        int backtrackLevel = implicationGraph.getSecondHighestDecisionLevel(learnedClause);
-        if (verbose)
-            System.out.println("Backtrack level is " + backtrackLevel);
-        currentDecisionLevel = backtrackLevel;
-        // Delete all nodes whose decision level is greater than backtrack level
-        backtrackAssignmentList(backtrackLevel);
-        implicationGraph.backtrack(backtrackLevel);
+    private int binaryId(int first, int second) {
+        return binaryIds.get(binaryKey(first, second));
     }
 
-    // helper function to backtrack assignment stack
-    private void backtrackAssignmentList(int backtrackLevel) {
-        Iterator<Assignment> iterator = assignmentStack.iterator();
+    private void registerBinary(int cref) {
+        binaryIds.put(binaryKey(arena.literal(cref, 0), arena.literal(cref, 1)), arena.id(cref));
+    }
 
-        while (iterator.hasNext()) {
-            Assignment assignment = iterator.next();
-            int decisionLevel = assignment.getDecisionLevel();
+    private static long binaryKey(int first, int second) {
+        return ((long) Math.min(first, second) << 32) | Math.max(first, second);
+    }
 
-            if (decisionLevel > backtrackLevel) {
-                // Remove the assignment if its decision level is greater than backtrackLevel
-                iterator.remove();
-                assignmentMap.remove(assignment.getLiteral().getVariable());
+    // Final conflict analysis: the assumption is false, find the assumptions that
+    // made it false. Starting from its variable, reasons are followed backwards
+    // along the trail above level 0. The marked literals without a reason are
+    // decisions, which at this point are all assumptions, and they form the
+    // core together with the failed assumption
+    private void analyzeFinal(int assumption) {
+        core.clear();
+        core.add(assumption);
+        int variable = Literal.variable(assumption);
+        if (levels[variable] == 0) {
+            return;
+        }
+        seen[variable] = true;
+        for (int i = trailSize - 1; i >= trailLimits.get(0); i--) {
+            int current = Literal.variable(trail[i]);
+            if (!seen[current]) {
+                continue;
+            }
+            seen[current] = false;
+            int reason = reasons[current];
+            if (reason == NO_REASON) {
+                core.add(trail[i]);
+            } else if (isBinaryReason(reason)) {
+                markForFinal(binaryReasonLiteral(reason));
+            } else {
+                for (int k = 1; k < arena.size(reason); k++) {
+                    markForFinal(arena.literal(reason, k));
+                }
             }
         }
     }
 
-    // helper function to combine original clauses and learned clauses.
-    // used in BCP function
-    private List<Clause> getAllClauses() {
-        List<Clause> allClauses = new ArrayList<>(clauses);
-        allClauses.addAll(learnedClauses);
-        return allClauses;
+    private void markForFinal(int literal) {
+        if (decisionLevelOf(literal) > 0) {
+            seen[Literal.variable(literal)] = true;
+        }
     }
 
-    // helper function that determines if a clause is currently
-    // a unit clause under the current assignment stack
-    private boolean isUnitClause(Clause clause) {
-        int unassignedCount = 0;
-        for (Literal literal : clause.getLiterals()) {
-            if (!literalIsAssigned(literal)) {
-                unassignedCount++;
-                if (unassignedCount > 1) {
-                    return false; // More than one unassigned literal
-                }
-            } else if (literalIsTrue(literal)) {
-                return false; // Clause is already satisfied
+    // Picks a variable to split the search space on below the given cube, a
+    // conjunction of literals, by lookahead. The cube is decided and propagated,
+    // then for the unassigned variables with the highest activity both literals
+    // are propagated in turn. The variable whose two literals together imply the
+    // most, by the product of the implied counts, is returned. Returns 0 if the
+    // cube leaves no variable unassigned or every candidate has a failing
+    // literal, and -1 if the cube itself leads to a conflict
+    public int lookahead(int[] cube, int candidates) {
+        if (!initialize(false)) {
+            return -1;
+        }
+        backtrack(0, false);
+        for (int literal : cube) {
+            if (literalIsTrue(literal)) {
+                continue;
+            }
+            if (literalIsAssigned(literal)) {
+                backtrack(0, false);
+                return -1;
+            }
+            trailLimits.add(trailSize);
+            assign(literal, NO_REASON);
+            if (unitPropagation() != NO_REASON) {
+                backtrack(0, false);
+                return -1;
+            }
+        }
+
+        // the unassigned variables with the highest activity, in a small sorted array
+        int[] best = new int[candidates];
+        int count = 0;
+        for (int variable = 1; variable <= numVariables; variable++) {
+            if (values[variable] != VALUE_UNASSIGNED) {
+                continue;
+            }
+            double activity = vsids.getActivity(variable);
+            if (count == candidates && activity <= vsids.getActivity(best[count - 1])) {
+                continue;
+            }
+            int position = count < candidates ? count++ : count - 1;
+            while (position > 0 && vsids.getActivity(best[position - 1]) < activity) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = variable;
+        }
+
+        int level = decisionLevel();
+        int splitVariable = 0;
+        long bestScore = -1;
+        for (int c = 0; c < count; c++) {
+            long positive = lookaheadImplied(Literal.of(best[c], false), level);
+            long negative = lookaheadImplied(Literal.of(best[c], true), level);
+            if (positive < 0 || negative < 0) {
+                continue;
+            }
+            long score = (positive + 1) * (negative + 1);
+            if (score > bestScore) {
+                bestScore = score;
+                splitVariable = best[c];
             }
         }
-        return unassignedCount == 1;
+        backtrack(0, false);
+        return splitVariable;
     }
 
-    // returns first unassigned literal in a clause
-    private Literal getUnassignedLiteral(Clause clause) {
-        for (Literal literal : clause.getLiterals()) {
-            if (!literalIsAssigned(literal)) {
-                return literal;
+    // number of literals assigning literal on top of level implies, -1 on a conflict
+    private long lookaheadImplied(int literal, int level) {
+        int start = trailSize;
+        trailLimits.add(trailSize);
+        assign(literal, NO_REASON);
+        boolean conflict = unitPropagation() != NO_REASON;
+        int implied = trailSize - start - 1;
+        backtrack(level, false);
+        return conflict ? -1 : implied;
+    }
+
+    // The unassigned variable with the highest activity that is not in cube, 0 if
+    // there is none. Used to split a cube that takes too long
+    public int mostActiveVariable(int[] cube) {
+        backtrack(0, false);
+        stamp++;
+        for (int literal : cube) {
+            stamps[Literal.variable(literal)] = stamp;
+        }
+        int best = 0;
+        for (int variable = 1; variable <= numVariables; variable++) {
+            if (values[variable] == VALUE_UNASSIGNED && stamps[variable] != stamp
+                    && (best == 0 || vsids.getActivity(variable) > vsids.getActivity(best))) {
+                best = variable;
             }
         }
-        return null; // No unassigned literal found
+        return best;
     }
 
-    // checks if assigning the literal to evaluate to true (adding a unit clause)
-    // would
-    // make any of the clauses false
-    private boolean isConflict(Literal literal, Clause unitClause) {
-        return testAssignmentForConflict(literal, unitClause);
+    // The level 0 facts as unit clauses and the learned clauses short enough to
+    // be shared, as literal codes. They follow from the formula, so a new solver
+    // on the same formula can start with them as clauses of its own
+    public List<int[]> getSharableClauses() {
+        List<int[]> result = new ArrayList<>();
+        int levelZeroEnd = decisionLevel() == 0 ? trailSize : trailLimits.get(0);
+        for (int i = 0; i < levelZeroEnd; i++) {
+            result.add(new int[] { trail[i] });
+        }
+        IntVec learned = learnedClauses.getClauses();
+        for (int i = 0; i < learned.size(); i++) {
+            int cref = learned.get(i);
+            if (!arena.isDeleted(cref) && arena.size(cref) <= SHARE_MAX_SIZE && arena.getLbd(cref) <= SHARE_MAX_LBD) {
+                result.add(arena.getLiterals(cref));
+            }
+        }
+        return result;
     }
 
-    // this function creates a temporary assignment of the literal to evaluate to
-    // true
-    // if a confict is detected it adds a conflict node to the graph
-    private boolean testAssignmentForConflict(Literal literal, Clause unitClause) {
-        // Temporarily add the assignment
-        Assignment assignment = new Assignment(literal, !literal.isNegated(), currentDecisionLevel,
-                Assignment.AssignmentType.IMPLICATION);
-        assignmentStack.push(assignment);
-        assignmentMap.put(literal.getVariable(), assignment);
-        // Check if any clause becomes false
-        for (Clause clause : getAllClauses()) {
-            if (!clauseIsSatisfied(clause) && allLiteralsFalse(clause)) {
+    // Pre-processing, done once before the first search. Returns false if the
+    // formula is already unsatisfiable at level 0
+    private boolean initialize(boolean assignPureLiterals) {
+        if (initialized) {
+            return !inconsistent;
+        }
+        initialized = true;
+        inconsistent = true;
 
-                // Keep the assignment
-                // assignmentStack.pop(); // Revert the temporary assignment
+        // Set up watch lists, unit clauses are assigned at level 0
+        if (!initWatches()) {
+            if (verbose) {
+                System.out.println("Found contradictory unit clauses in pre-processesor step");
+            }
+            return false;
+        }
 
-                // Get antecedents for
-                List<Assignment> antecedents = findAntecedentsForUnitClause(unitClause);
-                // Remove literal in clause that corresponds to assigment
+        // Run BCP
+        int initialConflict = unitPropagation();
+        if (initialConflict != NO_REASON) {
+            levelZeroConflict = initialConflict;
+            if (verbose) {
+                System.out.println("Found initial conflict during BCP in pre-processesor step");
+            }
+            return false;
+        }
+        // Count literal occurrences, they seed the branching heuristic
+        int[] occurrences = countLiteralOccurrences();
+        if (verbose)
+            printLiteralOccurrences(occurrences);
+        initBranching(occurrences);
+
+        // Apply pure literal propagation, pure literals are set to true at level 0
+        // which satisfies every clause containing them
+        pureLiterals = assignPureLiterals;
+        if (pureLiterals) {
+            assignPureLiterals(lookForPureLiterals(occurrences));
+        }
 
-                // Create an iterator for the antecedents list
-                Iterator<Assignment> iterator = antecedents.iterator();
+        // Probe for literals whose assignment fails, they are false at level 0
+        if (probing && !probe()) {
+            return false;
+        }
+        inconsistent = false;
+        return true;
+    }
 
-                // Remove literal in clause that corresponds to assignment
-                while (iterator.hasNext()) {
-                    Assignment ant = iterator.next();
-                    if (ant.getLiteral().equals(assignment.getLiteral())) {
-                        iterator.remove(); // Remove the assignment from the list
-                        break; // Exit the loop after the first removal
-                    }
-                }
+    // Deletes the less useful half of the learned clauses and drops them from the
+    // watch lists. When deleted clauses take up half of the arena it is compacted
+    private void reduceLearnedClauses() {
+        int deleted = learnedClauses.reduce(this::isLocked);
+        stats.reductions++;
+        stats.deletedClauses += deleted;
+        if (printReductions) {
+            System.err.println("c reduction " + stats.reductions + " kept " + learnedClauses.getLastKept()
+                    + " deleted " + learnedClauses.getLastDeleted());
+        }
+        if (arena.isMostlyWasted()) {
+            collectGarbage();
+        } else {
+            removeDeletedWatches();
+        }
+    }
 
-                // run addConflict
-                implicationGraph.addConflictNode(assignment, antecedents, clause);
+    // Simplifies the clause database at level 0: clauses satisfied by level 0
+    // facts are dropped, literals falsified by them are removed, then subsumed
+    // clauses are deleted and clauses are strengthened. The watch lists are
+    // rebuilt afterwards, then another probing round runs and clauses are
+    // vivified. Returns false if the formula turned out unsatisfiable
+    private boolean inprocess() {
+        backtrack(0);
+        logLevelZeroUnits();
+        stats.inprocessings++;
+        nextInprocess = stats.conflicts + (stats.inprocessings + 1) * INPROCESS_INTERVAL;
+        // level 0 facts are never explained again, their reasons may be simplified away
+        for (int i = 0; i < trailSize; i++) {
+            reasons[Literal.variable(trail[i])] = NO_REASON;
+        }
+        if (subsume && !subsumeClauses()) {
+            return false;
+        }
+        if (probing && !probe()) {
+            return false;
+        }
+        if (vivifyLearned && !vivifyClauses()) {
+            return false;
+        }
+        return importSharedClauses();
+    }
 
-                return true; // Conflict detected
+    // Adds the clauses other solvers shared since the last call, at level 0.
+    // Literals false at level 0 are left out, satisfied clauses are skipped and
+    // units are assigned. Returns false if a clause is false at level 0 or
+    // propagating the new clauses leads to a conflict
+    private boolean importSharedClauses() {
+        if (sharing == null) {
+            return true;
+        }
+        int lbd;
+        while ((lbd = sharing.poll(vivifyLiterals)) >= 0) {
+            learnedLiterals.clear();
+            boolean satisfied = false;
+            for (int k = 0; k < vivifyLiterals.size() && !satisfied; k++) {
+                int literal = vivifyLiterals.get(k);
+                satisfied = literalIsTrue(literal);
+                if (!literalIsAssigned(literal)) {
+                    learnedLiterals.add(literal);
+                }
+            }
+            if (satisfied) {
+                continue;
             }
+            if (learnedLiterals.isEmpty()) {
+                return false;
+            }
+            if (learnedLiterals.size() == 1) {
+                assign(learnedLiterals.get(0), NO_REASON);
+                continue;
+            }
+            int cref = arena.allocate(learnedLiterals, true);
+            learnedClauses.add(cref, Math.min(lbd, learnedLiterals.size()));
+            if (learnedLiterals.size() == 2) {
+                addBinary(learnedLiterals.get(0), learnedLiterals.get(1));
+            } else {
+                watchClause(cref);
+            }
+        }
+        return unitPropagation() == NO_REASON;
+    }
+
+    private boolean subsumeClauses() {
+        removeLevelZeroLiterals(clauses);
+        removeLevelZeroLiterals(learnedClauses.getClauses());
+
+        Subsumer subsumer = new Subsumer(arena, numVariables);
+        boolean satisfiable = subsumer.run(clauses, learnedClauses.getClauses());
+        stats.subsumedClauses += subsumer.getSubsumed();
+        stats.strengthenedClauses += subsumer.getStrengthened();
+        if (!satisfiable) {
+            return false;
+        }
+        if (arena.isMostlyWasted()) {
+            collectGarbage();
         }
-        // No conflict found, revert the temporary assignment
-        assignmentStack.pop();
-        assignmentMap.remove(literal.getVariable());
-        return false; // No conflict detected
+        return rebuildWatches();
     }
 
-    // helper function that looks at a clause and returns true if
-    // all literals are assigned to false
-    private boolean allLiteralsFalse(Clause clause) {
-        for (Literal literal : clause.getLiterals()) {
-            if (!literalIsAssigned(literal) || literalIsTrue(literal)) {
-                // If any literal is unassigned or true, the clause is not unsatisfiable
+    // Failed literal probing at level 0. Both literals of a variable are assumed
+    // in turn at level 1 and propagated. When one of them leads to a conflict its
+    // negation holds and is assigned at level 0. Literals implied by both are
+    // assigned at level 0 as well. Every literal x a probe of l implies through a
+    // clause with more than one other false literal from level 1 gives the
+    // hyper-binary resolvent (!l | x), which is learned so that later
+    // propagation reaches x in one step. Only variables that occur in binary
+    // clauses are probed, and a round stops after PROBE_BUDGET propagations. The
+    // next round goes on with the variable after the last one probed. Returns
+    // false if the formula turned out unsatisfiable
+    private boolean probe() {
+        if (unitPropagation() != NO_REASON) {
+            return false;
+        }
+        long budget = stats.propagations + PROBE_BUDGET;
+        for (int tried = 0; tried < numVariables && stats.propagations < budget; tried++) {
+            int variable = probeVariable;
+            probeVariable = probeVariable % numVariables + 1;
+            int positive = Literal.of(variable, false);
+            int negative = Literal.of(variable, true);
+            if (values[variable] != VALUE_UNASSIGNED
+                    || (binaries[positive].isEmpty() && binaries[negative].isEmpty())) {
+                continue;
+            }
+            stats.probes++;
+            stamp++;
+            probeImplied.clear();
+            if (!probeLiteral(positive, true)) {
+                if (!assignFailedLiteral(negative)) {
+                    return false;
+                }
+                continue;
+            }
+            if (!probeLiteral(negative, false)) {
+                if (!assignFailedLiteral(positive)) {
+                    return false;
+                }
+                continue;
+            }
+            for (int i = 0; i < probeImplied.size(); i++) {
+                int literal = probeImplied.get(i);
+                if (!literalIsAssigned(literal)) {
+                    logProbeImplied(positive, literal);
+                    assign(literal, NO_REASON);
+                    stats.probeImplied++;
+                }
+            }
+            if (unitPropagation() != NO_REASON) {
                 return false;
             }
         }
-        // All literals are assigned and false, making the clause unsatisfiable
         return true;
     }
 
-    // This function assigns a unit literal to make it evaluate to true
-    private void propagate(Literal unitLiteral, Clause clause) {
+    // A literal implied by both literals of a variable is a unit. Each of the two
+    // implications follows by propagation, the unit by resolving them, and the
+    // proof gets all three steps
+    private void logProbeImplied(int positive, int literal) {
+        if (proof == null) {
+            return;
+        }
+        proof.add(Literal.negate(positive), literal);
+        proof.add(positive, literal);
+        proof.add(literal);
+        proof.delete(Literal.negate(positive), literal);
+        proof.delete(positive, literal);
+    }
+
+    // Assumes a literal at level 1, propagates and undoes it again. The implied
+    // literals are marked by the first probe of a variable, the second collects
+    // the marked ones in probeImplied. Returns false if the literal failed
+    private boolean probeLiteral(int literal, boolean first) {
+        int levelStart = trailSize;
+        trailLimits.add(trailSize);
+        assign(literal, NO_REASON);
+        if (unitPropagation() != NO_REASON) {
+            backtrack(0, false);
+            return false;
+        }
+        hyperBinaries.clear();
+        for (int i = levelStart + 1; i < trailSize; i++) {
+            int implied = trail[i];
+            if (first) {
+                probeMarks[implied] = stamp;
+            } else if (probeMarks[implied] == stamp) {
+                probeImplied.add(implied);
+            }
+            if (isHyperBinaryReason(reasons[Literal.variable(implied)])) {
+                hyperBinaries.add(Literal.negate(literal));
+                hyperBinaries.add(implied);
+            }
+        }
+        backtrack(0, false);
+        for (int i = 0; i < hyperBinaries.size(); i += 2) {
+            addHyperBinary(hyperBinaries.get(i), hyperBinaries.get(i + 1));
+        }
+        return true;
+    }
+
+    // true for a clause reason with at least two false literals assigned above level 0,
+    // the implied literal in position 0 is skipped
+    private boolean isHyperBinaryReason(int reason) {
+        if (reason < 0) {
+            return false;
+        }
+        int falseAboveZero = 0;
+        for (int k = 1; k < arena.size(reason); k++) {
+            if (decisionLevelOf(arena.literal(reason, k)) > 0 && ++falseAboveZero == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Learns the binary clause (first | second) unless it is already known
+    private void addHyperBinary(int first, int second) {
+        IntVec implied = binaries[Literal.negate(first)];
+        for (int i = 0; i < implied.size(); i++) {
+            if (implied.get(i) == second) {
+                return;
+            }
+        }
+        learnedLiterals.clear();
+        learnedLiterals.add(first);
+        learnedLiterals.add(second);
+        int cref = arena.allocate(learnedLiterals, true);
+        learnedClauses.add(cref, 2);
+        addBinary(first, second);
+        stats.hyperBinaries++;
+    }
+
+    // Vivification. The literals of a clause C are falsified one by one, each at
+    // a new decision level, and propagated. When this leads to a conflict, the
+    // falsified literals alone form a clause implied by the formula. When a
+    // later literal of C turns true it is implied by them, and the falsified
+    // literals together with it are implied. Literals that turn false are
+    // implied false and can be left out. Any of these gives a subset of C that
+    // replaces it. Learned clauses are tried in order of increasing LBD, and the
+    // original clauses first if they are vivified too. Each clause is tried only
+    // once. A round stops after VIVIFY_BUDGET propagations. Returns false if
+    // the formula turned out unsatisfiable
+    private boolean vivifyClauses() {
+        if (unitPropagation() != NO_REASON) {
+            return false;
+        }
+        long budget = stats.propagations + VIVIFY_BUDGET;
+        boolean changed = false;
+        if (vivifyOriginal) {
+            changed |= vivifyList(clauses, budget);
+        }
+        changed |= vivifyList(learnedClauses.getClauses(), budget);
+        if (!changed) {
+            return true;
+        }
+        // shortened clauses are not watched yet, the replaced ones still are
+        if (arena.isMostlyWasted()) {
+            collectGarbage();
+        }
+        return rebuildWatches();
+    }
+
+    // Vivifies the clauses of list that have not been tried before, until the budget
+    // is spent. Shortened clauses replace the originals in list. Returns true if any was
+    private boolean vivifyList(IntVec list, long budget) {
+        // sort keys hold the LBD in the high bits and the list position in the low bits
+        long[] candidates = new long[list.size()];
+        int count = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int cref = list.get(i);
+            if (arena.size(cref) > 2 && !arena.isVivified(cref) && !hasLevelZeroLiteral(cref)) {
+                candidates[count++] = ((long) arena.getLbd(cref) << 32) | i;
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+        boolean changed = false;
+        for (int c = 0; c < count && stats.propagations < budget; c++) {
+            int i = (int) candidates[c];
+            int cref = list.get(i);
+            int vivified = vivifyClause(cref);
+            arena.markVivified(vivified);
+            if (vivified != cref) {
+                list.set(i, vivified);
+                changed = true;
+            }
+        }
+        return changed;
+    }
 
-        boolean value = !unitLiteral.isNegated();
+    // Returns the reference of the shortened clause, or cref if nothing could be removed.
+    // The clause stays in the watch lists but propagation skips it, otherwise
+    // it would imply its own last literal once the others are false
+    private int vivifyClause(int cref) {
+        int size = arena.size(cref);
+        vivifyLiterals.clear();
+        for (int k = 0; k < size; k++) {
+            vivifyLiterals.add(arena.literal(cref, k));
+        }
+        vivifying = cref;
+        learnedLiterals.clear();
+        for (int k = 0; k < size; k++) {
+            int literal = vivifyLiterals.get(k);
+            byte value = literalValue(literal);
+            if (value == VALUE_FALSE) {
+                continue;
+            }
+            learnedLiterals.add(literal);
+            if (value == VALUE_TRUE) {
+                break;
+            }
+            trailLimits.add(trailSize);
+            assign(Literal.negate(literal), NO_REASON);
+            if (unitPropagation() != NO_REASON) {
+                break;
+            }
+        }
+        backtrack(0, false);
+        vivifying = NO_REASON;
+        if (learnedLiterals.size() == size) {
+            return cref;
+        }
+        stats.vivifiedClauses++;
+        stats.vivifiedLiterals += size - learnedLiterals.size();
+        return arena.reallocate(cref, learnedLiterals);
+    }
 
-        Assignment impliedAssignment = new Assignment(unitLiteral, value, currentDecisionLevel,
-                Assignment.AssignmentType.IMPLICATION);
+    private boolean hasLevelZeroLiteral(int cref) {
+        for (int k = 0; k < arena.size(cref); k++) {
+            if (literalIsAssigned(arena.literal(cref, k))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // Determine the antecedents from the assignment stack
-        // this function searches assignment stack and finds the assignments that forced
-        // the assigment in the unit clause
-        List<Assignment> antecedents = findAntecedentsForUnitClause(clause);
+    // the negation of a failed literal holds, it is assigned and propagated at level 0
+    private boolean assignFailedLiteral(int literal) {
+        stats.failedLiterals++;
+        if (proof != null) {
+            proof.add(literal);
+        }
+        assign(literal, NO_REASON);
+        return unitPropagation() == NO_REASON;
+    }
 
-        // Add the implication to the implication graph with its antecedents
-        implicationGraph.addImplication(impliedAssignment, antecedents, clause);
+    // Runs local search from the phases and saves its best assignment as the new
+    // phases. The search starts at level 0, so the trail does not overwrite them
+    // when it is undone, and level 0 values keep their value. If local search
+    // satisfies the formula, the next decisions follow its model without a conflict
+    private void localSearchPhases() {
+        backtrack(0);
+        LocalSearch search = new LocalSearch(arena, numVariables, probSat, seed + stats.localSearches);
+        for (int variable = 1; variable <= numVariables; variable++) {
+            int literal = Literal.of(variable, false);
+            boolean value = literalIsAssigned(literal) ? literalIsTrue(literal)
+                    : !Literal.isNegated(phases.decide(variable));
+            search.setValue(variable, value);
+        }
+        if (search.run((stats.localSearches + 1) * LOCAL_SEARCH_FLIPS_PER_CLAUSE * search.size())) {
+            stats.localSearchModels++;
+        }
+        stats.localSearches++;
+        stats.localSearchFlips += search.getFlips();
+        for (int variable = 1; variable <= numVariables; variable++) {
+            if (!literalIsAssigned(Literal.of(variable, false))) {
+                phases.setSaved(variable, !search.bestValue(variable));
+            }
+        }
+    }
 
-        // Push the implied assignment onto the assignment stack
-        assignmentStack.push(impliedAssignment);
-        assignmentMap.put(impliedAssignment.getLiteral().getVariable(), impliedAssignment);
+    // Writes the level 0 facts assigned since the last call to the proof as unit
+    // clauses. Facts implied by propagation are not in the proof, a checker finds
+    // them again as long as their reasons are there. Their reasons can be
+    // simplified away during inprocessing, so they are written before that
+    private void logLevelZeroUnits() {
+        if (proof == null || lrat) {
+            // LRAT proofs get the unit of every level 0 value when it is assigned
+            return;
+        }
+        int end = decisionLevel() == 0 ? trailSize : trailLimits.get(0);
+        for (; loggedUnits < end; loggedUnits++) {
+            proof.add(trail[loggedUnits]);
+        }
     }
 
-    // looks at a unit clause found through BCP
-    // and looks through Assignment stack to find all Assignments that forced
-    // the unit clause to exist
-    private List<Assignment> findAntecedentsForUnitClause(Clause unitClause) {
-        List<Assignment> antecedents = new ArrayList<>();
-        for (Literal literal : unitClause.getLiterals()) {
-            // The assignment must correspond to a literal in the clause and make it false
-            Assignment antecedent = assignmentMap.get(literal.getVariable());
-            if (antecedent != null) {
-                if (antecedent.getLiteral().getVariable() == literal.getVariable()/*
-                                                                                   * &&
-                                                                                   * assignment.getValue() !=
-                                                                                   * literal.isNegated()
-                                                                                   */) {
-                    antecedents.add(antecedent);
+    // Deletes the clauses of list that are satisfied at level 0 and replaces
+    // the ones with literals false at level 0 by copies without them
+    private void removeLevelZeroLiterals(IntVec list) {
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int cref = list.get(i);
+            if (clauseIsSatisfied(cref)) {
+                arena.markDeleted(cref);
+                continue;
+            }
+            learnedLiterals.clear();
+            for (int k = 0; k < arena.size(cref); k++) {
+                int literal = arena.literal(cref, k);
+                if (!literalIsAssigned(literal)) {
+                    learnedLiterals.add(literal);
                 }
             }
+            if (learnedLiterals.size() < arena.size(cref)) {
+                cref = arena.reallocate(cref, learnedLiterals);
+            }
+            list.set(kept++, cref);
         }
-        return antecedents;
+        list.shrink(kept);
     }
 
-    // helper function used in makeDecision function
-    // returns the first unassigned literal in the first unsatisfied clause in a
-    // list of clauses
-    private Literal findUnassignedLiteralFromUnsatisfiedClauses(List<Clause> clauses) {
-        for (Clause clause : clauses) {
-            if (!clauseIsSatisfied(clause)) {
-                for (Literal literal : clause.getLiterals()) {
-                    if (!literalIsAssigned(literal)) {
-                        return literal; // Found an unassigned literal in an unsatisfied clause
+    // Clears and refills the watch and implication lists from the clause lists,
+    // then propagates the whole level 0 trail again so clauses that simplification
+    // made unit are applied. Returns false on a level 0 conflict
+    private boolean rebuildWatches() {
+        for (int code = 0; code < watches.length; code++) {
+            watches[code].clear();
+            binaries[code].clear();
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            IntVec list = pass == 0 ? clauses : learnedClauses.getClauses();
+            for (int i = 0; i < list.size(); i++) {
+                int cref = list.get(i);
+                int size = arena.size(cref);
+                if (size == 1) {
+                    int unit = arena.literal(cref, 0);
+                    if (!literalIsAssigned(unit)) {
+                        assign(unit, NO_REASON);
+                    } else if (!literalIsTrue(unit)) {
+                        return false;
                     }
+                } else if (size == 2) {
+                    addBinary(arena.literal(cref, 0), arena.literal(cref, 1));
+                } else {
+                    watchClause(cref);
                 }
             }
         }
-        return null; // No unassigned literal found in unsatisfied clauses
+        propagationHead = 0;
+        return unitPropagation() == NO_REASON;
     }
 
-    // helper function returns the last Decision assignment
-    private Assignment getLastDecision() {
-        // Iterate backward through the assignment stack to find the last decision
-        // This is necessary to link the implication to its antecedent decision
-        ListIterator<Assignment> iterator = assignmentStack.listIterator(assignmentStack.size());
-        while (iterator.hasPrevious()) {
-            Assignment assignment = iterator.previous();
-            if (assignment.getType() == Assignment.AssignmentType.DECISION) {
-                return assignment;
+    // a clause is locked while it is the reason of the literal it implied,
+    // which sits in position 0
+    private boolean isLocked(int cref) {
+        int literal = arena.literal(cref, 0);
+        return reasons[Literal.variable(literal)] == cref && literalIsTrue(literal);
+    }
+
+    private void removeDeletedWatches() {
+        for (IntVec watchList : watches) {
+            int kept = 0;
+            for (int i = 0; i < watchList.size(); i += 2) {
+                int cref = watchList.get(i);
+                if (!arena.isDeleted(cref)) {
+                    watchList.set(kept++, cref);
+                    watchList.set(kept++, watchList.get(i + 1));
+                }
             }
+            watchList.shrink(kept);
         }
-        return null; // No decision found, which should not happen if propagate is called correctly
     }
 
-    // helper function determines if a literal evaluates to true under current stack
-    // of assignments
-    private boolean literalIsTrue(Literal literal) {
-        Assignment assignment = assignmentMap.get(literal.getVariable());
-
-        if (assignment == null) {
-            return false;
+    // Compacts the arena and moves every clause reference the solver holds to
+    // the new location of its clause
+    private void collectGarbage() {
+        int[] forward = arena.compact();
+        for (int i = 0; i < clauses.size(); i++) {
+            clauses.set(i, forward[clauses.get(i)]);
+        }
+        learnedClauses.relocate(forward);
+        for (int i = 0; i < trailSize; i++) {
+            int variable = Literal.variable(trail[i]);
+            if (reasons[variable] >= 0) {
+                reasons[variable] = forward[reasons[variable]];
+            }
         }
 
-        if (literal.isNegated()) {
-            return assignment.getValue() == false; // Expect the assignment value to be false for a negated literal to
-                                                   // be true
-        } else {
-            return assignment.getValue() == true; // Expect the assignment value to be true for a non-negated literal to
-                                                  // be true
+        for (IntVec watchList : watches) {
+            int kept = 0;
+            for (int i = 0; i < watchList.size(); i += 2) {
+                int cref = forward[watchList.get(i)];
+                if (cref >= 0) {
+                    watchList.set(kept++, cref);
+                    watchList.set(kept++, watchList.get(i + 1));
+                }
+            }
+            watchList.shrink(kept);
         }
     }
 
-    // helper function to determine if a literal has already been assigned
-    private boolean literalIsAssigned(Literal literal) {
-        return assignmentMap.containsKey(literal.getVariable());
+    // Undoes every decision, learned clauses and activities are kept
+    private void restart() {
+        if (verbose)
+            System.out.println("Restarting");
+        phases.updateTargetAndBest(trail, trailSize);
+        backtrack(0);
+        restartPolicy.onRestart();
+        phases.onRestart();
+        stats.restarts++;
     }
 
-    // helper function to determine if a given clause is satisfied
-    private boolean clauseIsSatisfied(Clause clause) {
-        for (Literal literal : clause.getLiterals()) {
-            if (literalIsTrue(literal)) {
-                return true;
+    // picks the unassigned variable with the highest activity
+    private boolean makeDecision() {
+
+        int decisionVariable = 0;
+        while (!vsids.isEmpty()) {
+            int variable = vsids.removeMax();
+            // Check if the variable is not already assigned
+            if (values[variable] == VALUE_UNASSIGNED) {
+                decisionVariable = variable;
+                break;
             }
         }
-        return false;
+        if (decisionVariable == 0) {
+            // every variable is assigned
+            return false;
+        }
+        int decisionLiteral = phases.decide(decisionVariable);
+
+        // open a new decision level on the trail and satisfy the decision literal
+        trailLimits.add(trailSize);
+        stats.decisions++;
+        assign(decisionLiteral, NO_REASON);
+        return true; // A decision has been made
     }
 
-    // function to check if the formula is satisfied
-    private boolean isSatisfied() { // check learned clauses
-        for (Clause clause : learnedClauses) {
-            if (!clauseIsSatisfied(clause)) {
-                return false;
-            }
+    // Builds the watch lists for every clause of the formula. Binary clauses go
+    // into the implication lists of both literals, longer clauses watch their
+    // first two literals and unit clauses are assigned directly at level 0. Returns false if two
+    // unit clauses contradict each other or the formula contains an empty clause
+    private boolean initWatches() {
+        watches = new IntVec[2 * (numVariables + 1)];
+        binaries = new IntVec[2 * (numVariables + 1)];
+        for (int code = 0; code < watches.length; code++) {
+            watches[code] = new IntVec();
+            binaries[code] = new IntVec();
         }
-        for (Clause clause : clauses) { // check original clauses
-            if (!clauseIsSatisfied(clause)) {
+
+        for (int i = 0; i < clauses.size(); i++) {
+            int cref = clauses.get(i);
+            if (arena.size(cref) == 0) {
+                levelZeroConflict = cref;
                 return false;
             }
+            if (arena.size(cref) == 1) {
+                int unit = arena.literal(cref, 0);
+                if (literalIsAssigned(unit)) {
+                    if (!literalIsTrue(unit)) {
+                        levelZeroConflict = cref;
+                        return false;
+                    }
+                } else {
+                    assign(unit, cref);
+                }
+            } else if (arena.size(cref) == 2) {
+                if (lrat) {
+                    registerBinary(cref);
+                }
+                addBinary(arena.literal(cref, 0), arena.literal(cref, 1));
+            } else {
+                watchClause(cref);
+            }
         }
-        return true; // all clauses are satisfied
+        return true;
     }
 
-    // Function to check if a list of learned clauses contains a unit clause and its
-    // negation
-    private boolean hasContradictoryUnitClause(List<Clause> learnedClauses) {
-        for (Clause clause : learnedClauses) {
-            // Check each clause for being a unit clause
-            if (clause.getLiterals().size() == 1) {
-                Literal literal = clause.getLiterals().get(0);
-                Literal negation = new Literal(literal.getVariable(), !literal.isNegated());
-                // Check if the negation of the unit clause is also present in the learned
-                // clauses
-                if (containsUnitLiteral(learnedClauses, negation)) {
-                    return true; // Found a unit clause and its negation
+    private void addBinary(int first, int second) {
+        binaries[first].add(second);
+        binaries[second].add(first);
+    }
+
+    // reason of a literal implied by the binary clause (literal | otherLiteral)
+    private static int binaryReason(int otherLiteral) {
+        return -2 - otherLiteral;
+    }
+
+    private static boolean isBinaryReason(int reason) {
+        return reason < BINARY_CONFLICT;
+    }
+
+    // the false literal of the binary clause that implied a literal
+    private static int binaryReasonLiteral(int reason) {
+        return -2 - reason;
+    }
+
+    // adds the clause to the watch lists of its first two literals, each
+    // watch uses the other watched literal as its blocker
+    private void watchClause(int cref) {
+        addWatch(arena.literal(cref, 0), cref, arena.literal(cref, 1));
+        addWatch(arena.literal(cref, 1), cref, arena.literal(cref, 0));
+    }
+
+    private void addWatch(int literal, int cref, int blocker) {
+        IntVec watchList = watches[literal];
+        watchList.add(cref);
+        watchList.add(blocker);
+    }
+
+    // function that runs BCP over the assignments that have not been propagated
+    // yet. For every literal that just became false the binary implications are
+    // applied first, without looking at the arena, then the longer clauses
+    // watching it are visited.
+    // if a conflict is detected it returns the reference of the clause
+    // in which a conflict is occuring, BINARY_CONFLICT for a binary clause,
+    // NO_REASON otherwise
+    private int unitPropagation() {
+        while (propagationHead < trailSize) {
+            // the literal that this assignment made false
+            int falseLiteral = Literal.negate(trail[propagationHead]);
+            propagationHead++;
+            stats.propagations++;
+
+            IntVec implied = binaries[falseLiteral];
+            for (int i = 0; i < implied.size(); i++) {
+                int literal = implied.get(i);
+                byte value = literalValue(literal);
+                if (value == VALUE_UNASSIGNED) {
+                    assign(literal, binaryReason(falseLiteral));
+                } else if (value == VALUE_FALSE) {
+                    binaryConflict[0] = falseLiteral;
+                    binaryConflict[1] = literal;
+                    propagationHead = trailSize;
+                    return BINARY_CONFLICT;
+                }
+            }
+
+            IntVec watchList = watches[falseLiteral];
+            int[] memory = arena.memory;
+            int base = arena.base;
+
+            int i = 0; // next watcher to look at
+            int j = 0; // next free slot of the clauses that keep watching falseLiteral
+            while (i < watchList.size()) {
+                int cref = watchList.get(i);
+                int blocker = watchList.get(i + 1);
+                i += 2;
+
+                // a true blocker satisfies the clause, it is skipped without reading it
+                if (literalIsTrue(blocker)) {
+                    stats.blockerHits++;
+                    watchList.set(j++, cref);
+                    watchList.set(j++, blocker);
+                    continue;
+                }
+                if (cref == vivifying) {
+                    watchList.set(j++, cref);
+                    watchList.set(j++, blocker);
+                    continue;
+                }
+                stats.clauseVisits++;
+                int otherWatch;
+                if (cref < base) {
+                    otherWatch = visitSharedClause(cref, falseLiteral);
+                    if (otherWatch == NO_REASON) {
+                        continue;
+                    }
+                    if (literalIsTrue(otherWatch)) {
+                        watchList.set(j++, cref);
+                        watchList.set(j++, otherWatch);
+                        continue;
+                    }
+                } else {
+                    int first = cref - base + ClauseArena.HEADER_SIZE;
+                    int size = memory[cref - base + ClauseArena.SIZE];
+
+                    // make sure the false literal is the second watch
+                    if (memory[first] == falseLiteral) {
+                        memory[first] = memory[first + 1];
+                        memory[first + 1] = falseLiteral;
+                    }
+
+                    // clause already satisfied by the other watch, which becomes the blocker
+                    otherWatch = memory[first];
+                    if (literalIsTrue(otherWatch)) {
+                        watchList.set(j++, cref);
+                        watchList.set(j++, otherWatch);
+                        continue;
+                    }
+
+                    // look for a literal that is not false to watch instead,
+                    // a ternary clause has a single candidate
+                    int newWatch = 0;
+                    if (size == 3) {
+                        if (literalValue(memory[first + 2]) != VALUE_FALSE) {
+                            newWatch = 2;
+                        }
+                    } else {
+                        for (int k = 2; k < size; k++) {
+                            if (literalValue(memory[first + k]) != VALUE_FALSE) {
+                                newWatch = k;
+                                break;
+                            }
+                        }
+                    }
+                    if (newWatch != 0) {
+                        int literal = memory[first + newWatch];
+                        memory[first + 1] = literal;
+                        memory[first + newWatch] = falseLiteral;
+                        addWatch(literal, cref, otherWatch);
+                        continue;
+                    }
+                }
+
+                // no replacement, clause is unit or false under the current assignment
+                watchList.set(j++, cref);
+                watchList.set(j++, otherWatch);
+                if (literalIsAssigned(otherWatch)) {
+                    // every literal is false, keep the remaining watchers and report the conflict
+                    while (i < watchList.size()) {
+                        watchList.set(j++, watchList.get(i++));
+                    }
+                    watchList.shrink(j);
+                    propagationHead = trailSize;
+                    return cref;
                 }
+                assign(otherWatch, cref);
             }
+            watchList.shrink(j);
         }
-        return false; // No contradictory unit clause found
+        return NO_REASON; // No conflicts detected
     }
 
-    // Helper function to check if a list of clauses contains a specific literal
-    private static boolean containsUnitLiteral(List<Clause> clauses, Literal literal) {
-        for (Clause clause : clauses) {
-            if (clause.getLiterals().size() == 1 && clause.containsLiteralExactly(literal)) {
-                return true;
+    // Propagation on a clause of the shared arena, which is never reordered. The
+    // arena keeps the positions of its watched literals instead, and propagation
+    // updates them the way it moves the literals of other clauses: the false
+    // literal becomes the second watch, and that watch moves to a literal that is
+    // not false if there is one. Returns NO_REASON once the watch moved,
+    // otherwise the first watched literal
+    private int visitSharedClause(int cref, int falseLiteral) {
+        int[] shared = arena.shared;
+        int[] watched = arena.watched;
+        int first = cref + ClauseArena.HEADER_SIZE;
+        int size = shared[cref + ClauseArena.SIZE];
+        int positions = 2 * shared[cref + ClauseArena.NUMBER];
+        if (shared[first + watched[positions]] == falseLiteral) {
+            int falsePosition = watched[positions];
+            watched[positions] = watched[positions + 1];
+            watched[positions + 1] = falsePosition;
+        }
+        int otherWatch = shared[first + watched[positions]];
+        if (literalIsTrue(otherWatch)) {
+            return otherWatch;
+        }
+        for (int k = 0; k < size; k++) {
+            if (k != watched[positions] && k != watched[positions + 1]
+                    && literalValue(shared[first + k]) != VALUE_FALSE) {
+                watched[positions + 1] = k;
+                addWatch(shared[first + k], cref, otherWatch);
+                return NO_REASON;
             }
         }
-        return false;
+        return otherWatch;
     }
 
-    // Helper function to determine if satisfying a given decision literal
-    // would falsify a unit clause within the learned list and
-    private boolean wouldFalsifyUnitClause(Literal decisionLiteral) {
-        for (Clause clause : learnedClauses) {
+    // Stores the learned clause in the arena, adds it to the watch lists and asserts
+    // its one unassigned literal. Conflict analysis puts the asserting literal first
+    // and a literal from the backtrack level second, so after backtracking the
+    // clause is unit and already watched correctly. Learned binary clauses go into
+    // the implication lists instead
+    private int addLearnedClause(IntVec learnedClause) {
+        int cref = arena.allocate(learnedClause, true);
+        learnedClauses.add(cref, learnedLbd);
+        if (sharing != null && learnedClause.size() <= SHARE_MAX_SIZE && learnedLbd <= SHARE_MAX_LBD) {
+            sharing.offer(learnedClause, learnedLbd);
+        }
+        if (verbose) {
+            System.out.println("Added learned clause to list");
+            CNFConverter.printClauses(arena, learnedClauses.getClauses());
+        }
+        int size = arena.size(cref);
+        if (size == 2) {
+            if (lrat) {
+                registerBinary(cref);
+            }
+            addBinary(arena.literal(cref, 0), arena.literal(cref, 1));
+            assign(arena.literal(cref, 0), binaryReason(arena.literal(cref, 1)));
+            return cref;
+        }
+        if (size > 2) {
+            watchClause(cref);
+        }
+        assign(arena.literal(cref, 0), cref);
+        return cref;
+    }
 
-            if (clause.getLiterals().size() == 1) {
-                if (clause.getLiterals().get(0).getVariable() == decisionLiteral.getVariable()) {
-                    if (clause.getLiterals().get(0).isNegated() != decisionLiteral.isNegated()) {
-                        return true;
-                    }
+    // Derives the first UIP clause of a conflict in one backwards pass over the trail.
+    // Starting from the conflict clause, literals assigned at the conflict level are
+    // counted and resolved away through their reason clauses in reverse trail order,
+    // literals from lower levels go straight into the learned clause. When a single
+    // conflict level literal is left it is the first UIP, its negation becomes the
+    // asserting literal. Level 0 literals are false for good and are left out.
+    // Every variable visited is bumped, and so is every learned clause resolved
+    // with. The clause is then minimized, and
+    // learnedLbd and backtrackLevel are set
+    private IntVec analyzeConflict(int conflict) {
+        if (verbose)
+            System.out.println("Analyzing conflict...");
+        learnedLiterals.clear();
+        learnedLiterals.add(0); // slot for the asserting literal
+        int conflictLevel = decisionLevel();
+        int pathCount = 0; // conflict level literals marked but not resolved yet
+        int index = trailSize - 1; // position on the trail to continue searching from
+        int uip = 0;
+        int reason = conflict;
+
+        do {
+            // visit the literals of the clause, the resolved variable is already seen
+            if (reason == BINARY_CONFLICT) {
+                pathCount += analyzeLiteral(binaryConflict[0], conflictLevel);
+                pathCount += analyzeLiteral(binaryConflict[1], conflictLevel);
+            } else if (isBinaryReason(reason)) {
+                pathCount += analyzeLiteral(binaryReasonLiteral(reason), conflictLevel);
+            } else {
+                if (arena.isLearned(reason)) {
+                    learnedClauses.bump(reason);
+                }
+                int size = arena.size(reason);
+                for (int k = 0; k < size; k++) {
+                    pathCount += analyzeLiteral(arena.literal(reason, k), conflictLevel);
                 }
             }
+            // the most recently assigned marked literal is resolved next
+            while (!seen[Literal.variable(trail[index])]) {
+                index--;
+            }
+            uip = trail[index];
+            index--;
+            reason = reasons[Literal.variable(uip)];
+            pathCount--;
+        } while (pathCount > 0);
+        learnedLiterals.set(0, Literal.negate(uip));
+        stats.learnedLiterals += learnedLiterals.size();
+
+        minimizeLearnedClause();
+        learnedLbd = computeLbd(learnedLiterals);
+        if (learnedLiterals.size() <= BINARY_MINIMIZE_MAX_SIZE && learnedLbd <= BINARY_MINIMIZE_MAX_LBD) {
+            binaryMinimizeLearnedClause();
         }
-        return false;
+
+        // the literal with the highest remaining level decides the backtrack level,
+        // it goes second so it is watched together with the asserting literal
+        backtrackLevel = 0;
+        if (learnedLiterals.size() > 1) {
+            int highest = 1;
+            for (int k = 2; k < learnedLiterals.size(); k++) {
+                if (decisionLevelOf(learnedLiterals.get(k)) > decisionLevelOf(learnedLiterals.get(highest))) {
+                    highest = k;
+                }
+            }
+            int literal = learnedLiterals.get(highest);
+            learnedLiterals.set(highest, learnedLiterals.get(1));
+            learnedLiterals.set(1, literal);
+            backtrackLevel = decisionLevelOf(literal);
+        }
+
+        for (int i = 0; i < seenVariables.size(); i++) {
+            seen[seenVariables.get(i)] = false;
+        }
+        seenVariables.clear();
+        if (verbose) {
+            System.out.print("Learned ");
+            CNFConverter.printClause(learnedLiterals);
+        }
+        return learnedLiterals;
     }
 
-    // For debugging, prints assignment stack
-    private void printAssignmentStack() {
-        System.out.println("Assignment stack is ....");
-        for (Assignment assignment : assignmentStack) {
-            System.out.println(assignment);
+    // Marks a literal of a clause taking part in conflict analysis. Literals from
+    // lower levels go into the learned clause, returns 1 for a newly marked
+    // literal of the conflict level, which still has to be resolved away
+    private int analyzeLiteral(int literal, int conflictLevel) {
+        int variable = Literal.variable(literal);
+        if (seen[variable] || levels[variable] == 0) {
+            return 0;
         }
+        seen[variable] = true;
+        seenVariables.add(variable);
+        vsids.bump(variable);
+        if (levels[variable] == conflictLevel) {
+            return 1;
+        }
+        learnedLiterals.add(literal);
+        return 0;
     }
 
-    // Checks if assignment stack has falsified a clause
-    // for checking if decision node made a clause false
-    private Clause getFalseClause() {
-        for (Clause clause : getAllClauses()) {
-            if (allLiteralsFalse(clause)) {
-                return clause;
+    // MiniSat style recursive minimization. A literal of the learned clause can be
+    // dropped when every literal of its reason is in the clause already or can be
+    // dropped itself, recursively. The variables of the clause are the ones still
+    // marked in seen after analysis. The asserting literal is always kept
+    private void minimizeLearnedClause() {
+        int abstractLevels = 0;
+        for (int k = 1; k < learnedLiterals.size(); k++) {
+            abstractLevels |= abstractLevel(Literal.variable(learnedLiterals.get(k)));
+        }
+        int size = learnedLiterals.size();
+        int kept = 1;
+        for (int k = 1; k < size; k++) {
+            int literal = learnedLiterals.get(k);
+            if (reasons[Literal.variable(literal)] == NO_REASON || !literalIsRedundant(literal, abstractLevels)) {
+                learnedLiterals.set(kept++, literal);
             }
         }
-        return null;
+        learnedLiterals.shrink(kept);
+        stats.minimizedLiterals += size - kept;
     }
 
-    private void printAssignmentMap() {
-        System.out.println("Assignment Map:");
-        for (Map.Entry<Integer, Assignment> entry : assignmentMap.entrySet()) {
-            Integer variable = entry.getKey();
-            Assignment assignment = entry.getValue();
-            System.out.println("Variable: " + variable + ", Assignment: " + assignment);
+    // Depth first search through the reasons of literal. Variables proven redundant
+    // stay marked in seen so later checks can stop at them, on failure the marks
+    // made by this search are undone. A reason literal whose level does not occur
+    // in the clause can never be removed, the abstract level check rejects most of
+    // those without searching further
+    private boolean literalIsRedundant(int literal, int abstractLevels) {
+        minimizeStack.clear();
+        minimizeStack.add(literal);
+        int marked = seenVariables.size();
+        while (!minimizeStack.isEmpty()) {
+            int reason = reasons[Literal.variable(minimizeStack.pop())];
+            boolean binary = isBinaryReason(reason);
+            int size = binary ? 2 : arena.size(reason);
+            // position 0 of a reason clause is the literal it implied
+            for (int k = 1; k < size; k++) {
+                int reasonLiteral = binary ? binaryReasonLiteral(reason) : arena.literal(reason, k);
+                int variable = Literal.variable(reasonLiteral);
+                if (seen[variable] || levels[variable] == 0) {
+                    continue;
+                }
+                if (reasons[variable] != NO_REASON && (abstractLevel(variable) & abstractLevels) != 0) {
+                    seen[variable] = true;
+                    seenVariables.add(variable);
+                    minimizeStack.add(reasonLiteral);
+                } else {
+                    for (int i = marked; i < seenVariables.size(); i++) {
+                        seen[seenVariables.get(i)] = false;
+                    }
+                    seenVariables.shrink(marked);
+                    return false;
+                }
+            }
         }
+        return true;
     }
 
-    private Map<Integer, Integer> mapVariableToScore() {
-        Map<Integer, Integer> variableToScore = new HashMap<>();
-        // Iterate through each clause
-        for (Clause clause : clauses) {
-            // Iterate through each literal in the clause
-            for (Literal literal : clause.getLiterals()) {
-                // Update the score for the variable of the current literal
-                int variable = literal.isNegated() ? -literal.getVariable() : literal.getVariable();
-                variableToScore.put(variable, variableToScore.getOrDefault(variable, 0) + 1);
+    // the level of a variable as a single bit, levels that share a bit are not told apart
+    private int abstractLevel(int variable) {
+        return 1 << (levels[variable] & 31);
+    }
+
+    // Removes literals l of the learned clause for which a binary clause
+    // (asserting | !l) exists. Resolving with it on l gives the clause without l.
+    // The binary clauses are found in the implication list of the asserting
+    // literal, where !l is currently true
+    private void binaryMinimizeLearnedClause() {
+        stamp++;
+        for (int k = 1; k < learnedLiterals.size(); k++) {
+            stamps[Literal.variable(learnedLiterals.get(k))] = stamp;
+        }
+        IntVec implied = binaries[learnedLiterals.get(0)];
+        int removable = 0;
+        for (int i = 0; i < implied.size(); i++) {
+            int other = implied.get(i);
+            int variable = Literal.variable(other);
+            if (stamps[variable] == stamp && literalIsTrue(other)) {
+                stamps[variable] = stamp - 1;
+                removable++;
+            }
+        }
+        if (removable == 0) {
+            return;
+        }
+        int kept = 1;
+        for (int k = 1; k < learnedLiterals.size(); k++) {
+            int literal = learnedLiterals.get(k);
+            if (stamps[Literal.variable(literal)] == stamp) {
+                learnedLiterals.set(kept++, literal);
+            } else if (lrat) {
+                binaryRemoved.add(literal);
             }
         }
-        return variableToScore;
+        learnedLiterals.shrink(kept);
+        stats.binaryMinimizedLiterals += removable;
     }
 
-    private void printVariableToScore(Map<Integer, Integer> variableToScore) {
-        for (Map.Entry<Integer, Integer> entry : variableToScore.entrySet()) {
-            int variable = entry.getKey();
-            int score = entry.getValue();
-            System.out.println("Variable: " + variable + ", Score: " + score);
+    // literal block distance, the number of distinct decision levels among the literals
+    private int computeLbd(IntVec literals) {
+        stamp++;
+        int lbd = 0;
+        for (int k = 0; k < literals.size(); k++) {
+            int level = decisionLevelOf(literals.get(k));
+            if (stamps[level] != stamp) {
+                stamps[level] = stamp;
+                lbd++;
+            }
         }
+        return lbd;
     }
 
-    private List<Integer> lookForPureLiterals(Map<Integer, Integer> variableToScore) {
-        Set<Integer> pureLiterals = new HashSet();
-        for (Map.Entry<Integer, Integer> entry : variableToScore.entrySet()) {
-            int variable = entry.getKey();
-            if (!variableToScore.containsKey(variable * -1)) {
-                if (verbose) {
-                    System.out.println(variable + " is a pure literal");
-                }
-                pureLiterals.add(variable);
+    // helper function to backtrack the trail, everything assigned after the start
+    // of level backtrackLevel + 1 is unassigned and the trail is truncated there
+    private void backtrack(int backtrackLevel) {
+        backtrack(backtrackLevel, true);
+    }
+
+    // savePhases is false when undoing assignments that were not made by search,
+    // such as probes, which should not change the phases of later decisions
+    private void backtrack(int backtrackLevel, boolean savePhases) {
+        if (verbose)
+            System.out.println("Backtrack level is " + backtrackLevel);
+        if (decisionLevel() <= backtrackLevel) {
+            return;
+        }
+        int levelStart = trailLimits.get(backtrackLevel);
+        for (int i = trailSize - 1; i >= levelStart; i--) {
+            int variable = Literal.variable(trail[i]);
+            values[variable] = VALUE_UNASSIGNED;
+            // the next decision on the variable gives it the same value again
+            if (savePhases) {
+                phases.save(trail[i]);
             }
+            // the variable can be branched on again
+            vsids.insert(variable);
         }
-        return new ArrayList<>(pureLiterals);
+        trailSize = levelStart;
+        trailLimits.shrink(backtrackLevel);
+        propagationHead = trailSize;
     }
 
-    // Method to remove clauses containing any pure literal from the list of pure
-    // literals
-    private void removeClausesContainingPureLiterals(List<Integer> pureLiterals) {
-        // Using an iterator to safely remove items while iterating
-        Iterator<Clause> iterator = clauses.iterator();
+    // current decision level, 0 before the first decision
+    private int decisionLevel() {
+        return trailLimits.size();
+    }
 
-        while (iterator.hasNext()) {
-            Clause clause = iterator.next();
-            // Check if the current clause contains any of the pure literals
-            if (containsAnyPureLiteral(clause, pureLiterals)) {
-                iterator.remove(); // Remove the clause if it contains any pure literal
-            }
+    // records the literal as true on the trail, with the clause that implied it
+    private void assign(int literal, int reason) {
+        int variable = Literal.variable(literal);
+        values[variable] = Literal.isNegated(literal) ? VALUE_FALSE : VALUE_TRUE;
+        levels[variable] = decisionLevel();
+        reasons[variable] = reason;
+        trail[trailSize++] = literal;
+        if (lrat && reason != NO_REASON && levels[variable] == 0) {
+            addLevelZeroUnit(literal, reason);
         }
     }
 
-    // Helper method to check if a clause contains any of the pure literals
-    private boolean containsAnyPureLiteral(Clause clause, List<Integer> pureLiterals) {
-        for (Integer literal : pureLiterals) {
-            boolean isNegated = (literal < 0);
-            int variable = Math.abs(literal);
+    // value of a literal under the current assignment, a negated literal has
+    // the opposite value of its variable
+    private byte literalValue(int literal) {
+        byte value = values[literal >> 1];
+        return (literal & 1) == 0 ? value : (byte) -value;
+    }
+
+    // helper function determines if a literal evaluates to true under the
+    // current assignment
+    private boolean literalIsTrue(int literal) {
+        return literalValue(literal) == VALUE_TRUE;
+    }
+
+    // helper function to determine if a literal has already been assigned
+    private boolean literalIsAssigned(int literal) {
+        return values[literal >> 1] != VALUE_UNASSIGNED;
+    }
+
+    // decision level at which an assigned literal got its value
+    private int decisionLevelOf(int literal) {
+        return levels[Literal.variable(literal)];
+    }
 
-            Literal l = new Literal(variable, isNegated);
-            // Assuming Clause class has a method to check if it contains a literal
-            // This method needs to be implemented in the Clause class
-            if (clause.containsLiteralExactly(l)) {
+    // helper function to determine if a given clause is satisfied
+    private boolean clauseIsSatisfied(int cref) {
+        for (int k = 0; k < arena.size(cref); k++) {
+            if (literalIsTrue(arena.literal(cref, k))) {
                 return true;
             }
         }
         return false;
     }
 
-    private void updateLiteralScoreMap(Clause learnedClause) {
-        for (Literal literal : learnedClause.getLiterals()) {
-            int variable = literal.getVariable();
-            literalScoreMap.put(variable, literalScoreMap.getOrDefault(variable, 0) + 1);
+    // function to check if the formula is satisfied
+    private boolean isSatisfied() { // check learned clauses
+        IntVec learned = learnedClauses.getClauses();
+        for (int i = 0; i < learned.size(); i++) {
+            if (!clauseIsSatisfied(learned.get(i))) {
+                return false;
+            }
+        }
+        for (int i = 0; i < clauses.size(); i++) { // check original clauses
+            if (!clauseIsSatisfied(clauses.get(i))) {
+                return false;
+            }
+        }
+        return true; // all clauses are satisfied
+    }
+
+    // For debugging, prints the trail
+    private void printTrail() {
+        System.out.println("Trail is ....");
+        for (int i = 0; i < trailSize; i++) {
+            int variable = Literal.variable(trail[i]);
+            System.out.println(Literal.toString(trail[i]) + (reasons[variable] == NO_REASON ? "  Decision" : "  Implication")
+                    + " at level " + levels[variable]);
         }
-        // Every 3rd learned clause divide all scores by 3
-        if (learnedClauses.size() % 3 == 0) {
-            for (int variable : literalScoreMap.keySet()) {
-                int currentScore = literalScoreMap.get(variable);
-                literalScoreMap.put(variable, currentScore / 2);
+    }
+
+    // number of clauses each literal occurs in, indexed by literal code
+    private int[] countLiteralOccurrences() {
+        int[] occurrences = new int[2 * (numVariables + 1)];
+        // Iterate through each clause
+        for (int i = 0; i < clauses.size(); i++) {
+            int cref = clauses.get(i);
+            // Iterate through each literal in the clause
+            for (int k = 0; k < arena.size(cref); k++) {
+                occurrences[arena.literal(cref, k)]++;
+            }
+        }
+        return occurrences;
+    }
+
+    private void printLiteralOccurrences(int[] occurrences) {
+        for (int literal = 2; literal < occurrences.length; literal++) {
+            if (occurrences[literal] > 0) {
+                System.out.println("Literal: " + Literal.toString(literal) + ", Occurrences: " + occurrences[literal]);
+            }
+        }
+    }
+
+    // Every variable starts with its occurrence count as activity, and decisions
+    // initially pick the polarity that occurs more often, or less often with
+    // inverted phases. A seed adds a random fraction to the activities, which
+    // only reorders variables with equal counts
+    private void initBranching(int[] occurrences) {
+        Random random = seed != 0 ? new Random(seed) : null;
+        for (int variable = 1; variable <= numVariables; variable++) {
+            int positive = occurrences[Literal.of(variable, false)];
+            int negative = occurrences[Literal.of(variable, true)];
+            if (positive + negative == 0) {
+                continue;
+            }
+            phases.setInitial(variable, (positive < negative) != invertPhases);
+            double activity = positive + negative;
+            if (random != null) {
+                activity += random.nextDouble();
+            }
+            vsids.setInitialActivity(variable, activity);
+            vsids.insert(variable);
+        }
+        for (int variable = 1; presetPhases != null && variable <= numVariables; variable++) {
+            if (presetPhases[variable] != VALUE_UNASSIGNED) {
+                phases.setInitial(variable, presetPhases[variable] == VALUE_FALSE);
+            }
+        }
+        presetPhases = null;
+    }
+
+    // literals that occur in the formula while their negation does not
+    private IntVec lookForPureLiterals(int[] occurrences) {
+        IntVec pureLiterals = new IntVec();
+        for (int literal = 2; literal < occurrences.length; literal++) {
+            if (occurrences[literal] > 0 && occurrences[Literal.negate(literal)] == 0) {
+                if (verbose) {
+                    System.out.println(Literal.toString(literal) + " is a pure literal");
+                }
+                pureLiterals.add(literal);
+            }
+        }
+        return pureLiterals;
+    }
+
+    // Assigns every pure literal that BCP has not assigned yet to true at level 0
+    private void assignPureLiterals(IntVec pureLiterals) {
+        for (int i = 0; i < pureLiterals.size(); i++) {
+            int literal = pureLiterals.get(i);
+            if (!literalIsAssigned(literal)) {
+                // no clause contains the negation, so the unit is a RAT clause
+                if (proof != null) {
+                    proof.add(literal);
+                }
+                assign(literal, NO_REASON);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -1,115 +1,138 @@
 package edu.utexas.cs.alr.util;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import edu.utexas.cs.alr.ast.Expr;
 import edu.utexas.cs.alr.ast.*;
 
-//class for converting CNF formula to a list of Clause objects
+//class for converting CNF formula to clauses packed in a ClauseArena
 public class CNFConverter {
 
-    //main function to convert formula to list of Clauses
-    public static List<Clause> convertToClauses(Expr expr) {
-        List<Clause> clauses = new ArrayList<>();
-        
-        //Converts expression to a list of clause objects
-        extractClauses(expr, clauses);
-        
-        //Remove duplicate literals from each clause in list of clauses
-        for (Clause clause : clauses) {
-            clause.removeDuplicates();
-        }
+    //main function to convert formula to an arena of clauses
+    public static ClauseArena convertToClauses(Expr expr) {
+        ClauseArena arena = new ClauseArena();
+        IntVec literals = new IntVec();
+        int[] marks = new int[2]; // per literal code, see normalizeClause
+        int stamp = 0;
 
-        //Removes clauses that contain x v !x, for all x. Tautology
-        removeContradictoryClauses(clauses);
-        return clauses;
-    }
+        //Walk the conjunction left to right, each conjunct is one clause
+        Deque<Expr> pending = new ArrayDeque<>();
+        pending.push(expr);
+        while (!pending.isEmpty()) {
+            Expr e = pending.pop();
+            if (e instanceof AndExpr) {
+                AndExpr andExpr = (AndExpr) e;
+                pending.push(andExpr.getRight());
+                pending.push(andExpr.getLeft());
+                continue;
+            }
+            literals.clear();
+            extractLiterals(e, literals);
+            marks = ensureCapacity(marks, literals);
+            stamp++;
 
-    //function to print a list of Clauses
-        public static void printClause(Clause clause) {
-            System.out.print("Clause " + ": ");
+            //Remove duplicate literals, and drop clauses that contain x v !x, for all x. Tautology
+            if (normalizeClause(literals, marks, stamp)) {
+                arena.allocate(literals, false);
+            }
+        }
+        return arena;
+    }
 
-            List<Literal> literals = clause.getLiterals();
-            for (int j = 0; j < literals.size(); j++) {
-                Literal literal = literals.get(j);
-                String literalStr = (literal.isNegated() ? "!" : "") + "x" + literal.getVariable();
-                
-                System.out.print(literalStr);
-                if (j < literals.size() - 1) {
-                    System.out.print(" | "); 
+    //writes the clauses of the arena to a file in DIMACS CNF format, the input
+    //format of external tools such as proof checkers
+    public static void writeDimacs(ClauseArena arena, int numVariables, String path) throws IOException {
+        int count = 0;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (!arena.isDeleted(cref)) {
+                count++;
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(path))) {
+            out.write("p cnf " + numVariables + " " + count + "\n");
+            StringBuilder line = new StringBuilder();
+            for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+                if (arena.isDeleted(cref)) {
+                    continue;
+                }
+                line.setLength(0);
+                for (int k = 0; k < arena.size(cref); k++) {
+                    int literal = arena.literal(cref, k);
+                    line.append(Literal.isNegated(literal) ? -Literal.variable(literal) : Literal.variable(literal));
+                    line.append(' ');
                 }
+                line.append("0\n");
+                out.write(line.toString());
             }
-            System.out.println();
-
+        }
+    }
 
+    //function to print a clause
+    public static void printClause(ClauseArena arena, int cref) {
+        System.out.println("Clause " + ": " + arena.toString(cref));
     }
-    public static void printClauses(List<Clause> clauses) {
-        for (int i = 0; i < clauses.size(); i++) {
-            Clause clause = clauses.get(i);
-            System.out.print("Clause " + (i + 1) + ": ");
 
-            List<Literal> literals = clause.getLiterals();
-            for (int j = 0; j < literals.size(); j++) {
-                Literal literal = literals.get(j);
-                String literalStr = (literal.isNegated() ? "!" : "") + "x" + literal.getVariable();
-                
-                System.out.print(literalStr);
-                if (j < literals.size() - 1) {
-                    System.out.print(" | "); 
-                }
+    public static void printClause(IntVec literals) {
+        System.out.print("Clause " + ": ");
+        for (int j = 0; j < literals.size(); j++) {
+            System.out.print(Literal.toString(literals.get(j)));
+            if (j < literals.size() - 1) {
+                System.out.print(" | ");
             }
-            System.out.println();
         }
+        System.out.println();
     }
 
-
-    private static void extractClauses(Expr expr, List<Clause> clauses) {
-        if (expr instanceof AndExpr) {
-            AndExpr andExpr = (AndExpr) expr;
-            extractClauses(andExpr.getLeft(), clauses);
-            extractClauses(andExpr.getRight(), clauses);
-        } else {
-            Clause clause = new Clause();
-            extractLiterals(expr, clause);
-            clauses.add(clause);
+    public static void printClauses(ClauseArena arena, IntVec crefs) {
+        for (int i = 0; i < crefs.size(); i++) {
+            System.out.println("Clause " + (i + 1) + ": " + arena.toString(crefs.get(i)));
         }
     }
 
-    private static void extractLiterals(Expr expr, Clause clause) {
+    private static void extractLiterals(Expr expr, IntVec literals) {
         if (expr instanceof OrExpr) {
             OrExpr orExpr = (OrExpr) expr;
-            extractLiterals(orExpr.getLeft(), clause);
-            extractLiterals(orExpr.getRight(), clause);
+            extractLiterals(orExpr.getLeft(), literals);
+            extractLiterals(orExpr.getRight(), literals);
         } else if (expr instanceof NegExpr) {
             NegExpr negExpr = (NegExpr) expr;
             VarExpr varExpr = (VarExpr) negExpr.getExpr();
-            clause.addLiteral(new Literal((int) varExpr.getId(), true));
+            literals.add(Literal.of((int) varExpr.getId(), true));
         } else if (expr instanceof VarExpr) {
             VarExpr varExpr = (VarExpr) expr;
-            clause.addLiteral(new Literal((int) varExpr.getId(), false));
+            literals.add(Literal.of((int) varExpr.getId(), false));
         }
     }
 
-    public static void removeContradictoryClauses(List<Clause> clauses) {
-        // Iterate over each clause in the list
-        for (int i = 0; i < clauses.size(); i++) {
-            Clause clause = clauses.get(i);
-            boolean containsContradiction = false;
-
-            // Check each literal in the current clause
-            for (Literal literal : clause.getLiterals()) {
-                Literal oppositeLiteral = new Literal(literal.getVariable(), !literal.isNegated());
-
-                // If the clause contains the opposite of the current literal, mark it for removal
-                if (clause.containsLiteralExactly(oppositeLiteral)) {
-                    containsContradiction = true;
-                    break;
-                }
+    // Removes repeated literals from a clause, keeping the first occurrence, and
+    // returns false if the clause contains both a literal and its negation.
+    // marks[code] == stamp flags the literals seen so far in this clause, so the
+    // check is linear in the clause size. stamp must be new for every clause
+    public static boolean normalizeClause(IntVec literals, int[] marks, int stamp) {
+        int kept = 0;
+        for (int i = 0; i < literals.size(); i++) {
+            int literal = literals.get(i);
+            if (marks[literal] == stamp) {
+                continue;
             }
-
-            // If the clause contains a contradiction, remove it from the list
-            if (containsContradiction) {
-                clauses.remove(i);
-                i--; // Decrement index to account for removed element
+            if (marks[Literal.negate(literal)] == stamp) {
+                return false;
             }
+            marks[literal] = stamp;
+            literals.set(kept++, literal);
+        }
+        literals.shrink(kept);
+        return true;
+    }
+
+    // grows the marks array so that every literal of the clause and its negation can index it
+    private static int[] ensureCapacity(int[] marks, IntVec literals) {
+        int needed = marks.length;
+        for (int i = 0; i < literals.size(); i++) {
+            needed = Math.max(needed, (literals.get(i) | 1) + 1);
         }
+        return needed > marks.length ? Arrays.copyOf(marks, Math.max(needed, 2 * marks.length)) : marks;
     }
-}
\ No newline at end of file
+}
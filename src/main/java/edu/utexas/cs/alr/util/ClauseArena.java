@@ -0,0 +1,386 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+
+// Stores every clause of the solver, original and learned, in one contiguous
+// int array. A clause is a small header followed by its literal codes, and it
+// is referred to by the int offset of its header (a clause reference, cref).
+//
+//   memory[cref + SIZE]      number of literals
+//   memory[cref + FLAGS]     learned/deleted/vivified bits
+//   memory[cref + LBD]       literal block distance, 0 if not computed
+//   memory[cref + ACTIVITY]  float activity stored as its int bits
+//   memory[cref + HEADER_SIZE ...]  the literals
+//
+// With a proof attached every clause allocated from then on is written to it
+// as an addition and every clause marked deleted as a deletion. Whoever
+// replaces clauses has to allocate the new ones before deleting the ones they
+// are derived from. For an LRAT proof the arena also keeps the id of every
+// clause, indexed by clause reference like memory, so deletions and hints can
+// name clauses by id.
+//
+// Solvers on several threads can share the clauses of one arena. It is frozen
+// first, which numbers its clauses in their ACTIVITY slot, and each solver then
+// layers an arena of its own on top of it. The shared clauses keep their
+// references, below base, and are only read: their literals are never
+// reordered. The layer keeps the positions of their two watched literals
+// instead and presents them in positions 0 and 1, just like solving moves the
+// watched literals of its own clauses to the front. It also keeps which
+// shared clauses it deleted or vivified. The clauses it allocates, such as
+// learned ones, get references from base on and live in its own memory.
+public class ClauseArena {
+    static final int SIZE = 0;
+    static final int FLAGS = 1;
+    static final int LBD = 2;
+    static final int ACTIVITY = 3;
+    static final int HEADER_SIZE = 4;
+    static final int NUMBER = ACTIVITY; // in a frozen arena, the number of the clause
+
+    static final int FLAG_LEARNED = 1;
+    static final int FLAG_DELETED = 2;
+    static final int FLAG_VIVIFIED = 4;
+
+    // package-private so propagation can read literals without a call per literal
+    int[] memory; // the clauses of this arena, the one with reference base + i starts at memory[i]
+    final int base; // references below it are shared clauses, 0 without a shared arena
+    final int[] shared; // memory of the frozen arena this one is layered on, or null
+    final int[] watched; // per shared clause number, the positions of its literals 0 and 1
+    private final byte[] sharedFlags; // per shared clause number, deleted and vivified bits
+    private int top; // first free slot of memory
+    private int wasted; // ints occupied by deleted clauses
+    private boolean frozen; // shared with layered arenas, nothing may change any more
+    private int clauseCount; // clauses numbered by freeze()
+    private DratProof proof; // receives every change to the clauses, or null
+    private int[] ids; // LRAT clause id at the index of each clause reference, or null
+
+    public ClauseArena() {
+        this(1024);
+    }
+
+    public ClauseArena(int capacity) {
+        this.memory = new int[Math.max(capacity, HEADER_SIZE)];
+        this.base = 0;
+        this.shared = null;
+        this.watched = null;
+        this.sharedFlags = null;
+        this.top = 0;
+        this.wasted = 0;
+    }
+
+    // An arena layered on top of a frozen one, for a solver that shares its
+    // clauses with solvers on other threads. Every shared clause starts out
+    // with its first two literals watched. The layer has no proof attached
+    public ClauseArena(ClauseArena shared) {
+        if (!shared.frozen) {
+            throw new IllegalArgumentException("Only a frozen arena can be shared");
+        }
+        this.memory = new int[1024];
+        this.base = shared.top;
+        this.shared = shared.memory;
+        this.watched = new int[2 * shared.clauseCount];
+        for (int number = 0; number < shared.clauseCount; number++) {
+            watched[2 * number + 1] = 1;
+        }
+        this.sharedFlags = new byte[shared.clauseCount];
+        this.top = 0;
+        this.wasted = 0;
+    }
+
+    // Makes the arena shareable by layered arenas on other threads. Deleted
+    // clauses are dropped, so references kept from before are invalid, and the
+    // clauses are numbered. Afterwards the arena cannot be changed any more
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        if (shared != null || proof != null) {
+            throw new IllegalStateException("Only an arena without a proof or a shared arena can be frozen");
+        }
+        if (wasted > 0) {
+            compact();
+        }
+        clauseCount = 0;
+        for (int cref = 0; cref < top; cref = next(cref)) {
+            memory[cref + NUMBER] = clauseCount++;
+        }
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("A frozen arena cannot be changed");
+        }
+    }
+
+    // Copies size literals from literals into the arena and returns the new clause reference
+    public int allocate(int[] literals, int size, boolean learned) {
+        checkNotFrozen();
+        int needed = top + HEADER_SIZE + size;
+        if (needed > memory.length) {
+            memory = Arrays.copyOf(memory, Math.max(needed, memory.length + memory.length / 2));
+            if (ids != null) {
+                ids = Arrays.copyOf(ids, memory.length);
+            }
+        }
+        int cref = top;
+        memory[cref + SIZE] = size;
+        memory[cref + FLAGS] = learned ? FLAG_LEARNED : 0;
+        memory[cref + LBD] = 0;
+        memory[cref + ACTIVITY] = 0;
+        System.arraycopy(literals, 0, memory, cref + HEADER_SIZE, size);
+        top = needed;
+        if (proof != null) {
+            int id = proof.add(literals, 0, size);
+            if (ids != null) {
+                ids[cref] = id;
+            }
+        }
+        return base + cref;
+    }
+
+    public int allocate(IntVec literals, boolean learned) {
+        return allocate(literals.rawData(), literals.size(), learned);
+    }
+
+    // Replaces a clause with a copy that holds the given literals, e.g. fewer of
+    // them after simplification. The copy keeps the learned flag and activity,
+    // its LBD cannot exceed its size. The old clause is marked deleted
+    public int reallocate(int cref, IntVec literals) {
+        int replacement = allocate(literals, isLearned(cref));
+        setLbd(replacement, Math.min(getLbd(cref), literals.size()));
+        setActivity(replacement, getActivity(cref));
+        markDeleted(cref);
+        return replacement;
+    }
+
+    // Logs every later change of the clauses to proof. The clauses already in
+    // the arena are the formula the proof refers to
+    public void logProof(DratProof proof) {
+        if (shared != null || frozen) {
+            throw new IllegalStateException("Shared clauses are not logged to a proof");
+        }
+        this.proof = proof;
+        this.ids = null;
+        if (proof != null && proof.isLrat()) {
+            ids = new int[memory.length];
+            for (int cref = 0; cref < top; cref = next(cref)) {
+                if (!isDeleted(cref)) {
+                    ids[cref] = proof.originalId();
+                }
+            }
+        }
+    }
+
+    public DratProof getProof() {
+        return proof;
+    }
+
+    // LRAT id of a clause, only kept while an LRAT proof is attached
+    public int id(int cref) {
+        return ids[cref];
+    }
+
+    public int size(int cref) {
+        return cref < base ? shared[cref + SIZE] : memory[cref - base + SIZE];
+    }
+
+    public int literal(int cref, int i) {
+        if (cref < base) {
+            return shared[cref + HEADER_SIZE + sharedPosition(cref, i)];
+        }
+        return memory[cref - base + HEADER_SIZE + i];
+    }
+
+    // Where literal i of a shared clause is stored. Positions 0 and 1 are its
+    // watched literals, the others follow in the order they are stored in
+    private int sharedPosition(int cref, int i) {
+        int number = shared[cref + NUMBER];
+        int first = watched[2 * number];
+        int second = watched[2 * number + 1];
+        if (i < 2) {
+            return i == 0 ? first : second;
+        }
+        int position = i - 2;
+        if (position >= Math.min(first, second)) {
+            position++;
+        }
+        if (position >= Math.max(first, second)) {
+            position++;
+        }
+        return position;
+    }
+
+    public void setLiteral(int cref, int i, int literal) {
+        checkOwn(cref);
+        memory[cref - base + HEADER_SIZE + i] = literal;
+    }
+
+    public void swapLiterals(int cref, int i, int j) {
+        checkOwn(cref);
+        int start = cref - base + HEADER_SIZE;
+        int tmp = memory[start + i];
+        memory[start + i] = memory[start + j];
+        memory[start + j] = tmp;
+    }
+
+    private void checkOwn(int cref) {
+        checkNotFrozen();
+        if (cref < base) {
+            throw new IllegalArgumentException("Shared clause " + cref + " cannot be changed");
+        }
+    }
+
+    public boolean containsLiteral(int cref, int literal) {
+        for (int i = 0; i < size(cref); i++) {
+            if (literal(cref, i) == literal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] getLiterals(int cref) {
+        if (cref < base) {
+            int[] literals = new int[size(cref)];
+            for (int i = 0; i < literals.length; i++) {
+                literals[i] = literal(cref, i);
+            }
+            return literals;
+        }
+        int start = cref - base + HEADER_SIZE;
+        return Arrays.copyOfRange(memory, start, start + memory[cref - base + SIZE]);
+    }
+
+    // learned, deleted and vivified bits of a clause
+    private int flags(int cref) {
+        return cref < base ? shared[cref + FLAGS] | sharedFlags[shared[cref + NUMBER]] : memory[cref - base + FLAGS];
+    }
+
+    public boolean isLearned(int cref) {
+        return (flags(cref) & FLAG_LEARNED) != 0;
+    }
+
+    public boolean isDeleted(int cref) {
+        return (flags(cref) & FLAG_DELETED) != 0;
+    }
+
+    // A deleted shared clause is only deleted for this arena, its memory is not
+    // wasted since it cannot be given back
+    public void markDeleted(int cref) {
+        if (isDeleted(cref)) {
+            return;
+        }
+        if (cref < base) {
+            sharedFlags[shared[cref + NUMBER]] |= FLAG_DELETED;
+            return;
+        }
+        checkNotFrozen();
+        int offset = cref - base;
+        memory[offset + FLAGS] |= FLAG_DELETED;
+        wasted += HEADER_SIZE + memory[offset + SIZE];
+        if (ids != null) {
+            proof.deleteId(ids[offset]);
+        } else if (proof != null) {
+            proof.delete(memory, offset + HEADER_SIZE, memory[offset + SIZE]);
+        }
+    }
+
+    // vivified clauses are not tried again
+    public boolean isVivified(int cref) {
+        return (flags(cref) & FLAG_VIVIFIED) != 0;
+    }
+
+    public void markVivified(int cref) {
+        if (cref < base) {
+            sharedFlags[shared[cref + NUMBER]] |= FLAG_VIVIFIED;
+            return;
+        }
+        checkNotFrozen();
+        memory[cref - base + FLAGS] |= FLAG_VIVIFIED;
+    }
+
+    public int getLbd(int cref) {
+        return cref < base ? shared[cref + LBD] : memory[cref - base + LBD];
+    }
+
+    public void setLbd(int cref, int lbd) {
+        checkOwn(cref);
+        memory[cref - base + LBD] = lbd;
+    }
+
+    // shared clauses have no activity, the slot holds their number
+    public float getActivity(int cref) {
+        return cref < base ? 0 : Float.intBitsToFloat(memory[cref - base + ACTIVITY]);
+    }
+
+    public void setActivity(int cref, float activity) {
+        checkOwn(cref);
+        memory[cref - base + ACTIVITY] = Float.floatToRawIntBits(activity);
+    }
+
+    // Reference one past the last clause, clauses can be walked with
+    // for (int cref = 0; cref < arena.end(); cref = arena.next(cref))
+    public int end() {
+        return base + top;
+    }
+
+    public int next(int cref) {
+        return cref + HEADER_SIZE + size(cref);
+    }
+
+    public int getWasted() {
+        return wasted;
+    }
+
+    // true once deleted clauses take up half of the memory of this arena, then
+    // compacting it is worth it
+    public boolean isMostlyWasted() {
+        return wasted > top / 2;
+    }
+
+    // Moves the live clauses next to each other into a new array, dropping the
+    // deleted ones. Returns a table indexed by old clause reference that holds
+    // the new reference, or -1 for deleted clauses, so the owner can update
+    // every reference it keeps. Shared clauses stay where they are
+    public int[] compact() {
+        checkNotFrozen();
+        int[] forward = new int[base + top];
+        for (int cref = 0; cref < base; cref = next(cref)) {
+            forward[cref] = isDeleted(cref) ? -1 : cref;
+        }
+        int[] compacted = new int[Math.max(top - wasted, HEADER_SIZE)];
+        int newTop = 0;
+        for (int offset = 0; offset < top; offset += HEADER_SIZE + memory[offset + SIZE]) {
+            int length = HEADER_SIZE + memory[offset + SIZE];
+            if ((memory[offset + FLAGS] & FLAG_DELETED) != 0) {
+                forward[base + offset] = -1;
+                continue;
+            }
+            forward[base + offset] = base + newTop;
+            System.arraycopy(memory, offset, compacted, newTop, length);
+            if (ids != null) {
+                ids[newTop] = ids[offset];
+            }
+            newTop += length;
+        }
+        memory = compacted;
+        top = newTop;
+        wasted = 0;
+        return forward;
+    }
+
+    public String toString(int cref) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size(cref); i++) {
+            if (i > 0) {
+                sb.append(" | ");
+            }
+            sb.append(Literal.toString(literal(cref, i)));
+        }
+        return sb.toString();
+    }
+}
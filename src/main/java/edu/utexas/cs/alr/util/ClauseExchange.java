@@ -0,0 +1,158 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Lets parallel solvers on the same formula share short learned clauses. Each
+// solver connects through a Port, offers the clauses it learns and polls the
+// ones the others offered when it is at level 0.
+//
+// The clauses go into a bounded ring buffer without locks. A producer claims
+// the next sequence number with one atomic increment and stores an immutable
+// entry in the slot of that number, which overwrites the entry one lap older.
+// Each port reads with its own cursor and checks the sequence number of every
+// entry it reads: an older number means the producer has not stored the entry
+// yet, a newer one means the entry was overwritten before this port got to
+// it, and the port moves on. Neither side ever waits for the other, a port
+// that falls more than a lap behind loses the clauses in between.
+//
+// Every port remembers a 64-bit hash of each clause it sent or received and
+// drops clauses whose hash it has seen, which also drops the rare distinct
+// clause with a colliding hash. The hashes are kept in a fixed open-addressed
+// table of a few times the ring size. A hash that finds its probe window full
+// evicts an entry there, so a long run forgets old clauses and may
+// share one again. Both only cost a shared clause, never correctness.
+public class ClauseExchange {
+    private static final class Entry {
+        final long sequence;
+        final int producer;
+        final int lbd;
+        final long hash;
+        final int[] literals;
+
+        Entry(long sequence, int producer, int lbd, long hash, int[] literals) {
+            this.sequence = sequence;
+            this.producer = producer;
+            this.lbd = lbd;
+            this.hash = hash;
+            this.literals = literals;
+        }
+    }
+
+    private static final int KNOWN_PER_SLOT = 4; // remembered hashes per ring buffer slot
+    private static final int KNOWN_PROBES = 8; // table entries a hash may go to
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong head; // sequence number the next offered clause gets
+
+    // capacity is rounded up to a power of two
+    public ClauseExchange(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+    }
+
+    // Connects one solver. Its counters in stats are updated by the port
+    public Port connect(int worker, SolverStats stats) {
+        return new Port(worker, stats);
+    }
+
+    // The view of one solver, only used by the thread of that solver
+    public final class Port {
+        private final int worker;
+        private final SolverStats stats;
+        private final long[] known; // hashes of the clauses sent or received, 0 is a free entry
+        private final int knownMask;
+        private long next; // sequence number of the next entry to read
+
+        private Port(int worker, SolverStats stats) {
+            this.worker = worker;
+            this.stats = stats;
+            this.known = new long[KNOWN_PER_SLOT * slots.length()];
+            this.knownMask = known.length - 1;
+            this.next = 0;
+        }
+
+        // Adds the hash to the known table, returns false if it was there already.
+        // A hash probes KNOWN_PROBES entries from its home entry, when they are all
+        // taken it overwrites one of them picked by its high bits
+        private boolean remember(long hash) {
+            if (hash == 0) {
+                hash = 1;
+            }
+            int home = (int) (hash ^ (hash >>> 32)) & knownMask;
+            for (int i = 0; i < KNOWN_PROBES; i++) {
+                int index = (home + i) & knownMask;
+                if (known[index] == hash) {
+                    return false;
+                }
+                if (known[index] == 0) {
+                    known[index] = hash;
+                    return true;
+                }
+            }
+            known[(home + (int) ((hash >>> 40) % KNOWN_PROBES)) & knownMask] = hash;
+            return true;
+        }
+
+        // Publishes a learned clause unless it went through this port before
+        public void offer(IntVec literals, int lbd) {
+            int[] clause = Arrays.copyOf(literals.rawData(), literals.size());
+            long hash = hash(clause);
+            if (!remember(hash)) {
+                return;
+            }
+            long sequence = head.getAndIncrement();
+            slots.set((int) (sequence & mask), new Entry(sequence, worker, lbd, hash, clause));
+            stats.exportedClauses++;
+        }
+
+        // Copies the next clause another solver offered into literals and returns
+        // its LBD, or returns -1 if there is none right now
+        public int poll(IntVec literals) {
+            while (true) {
+                long available = head.get();
+                if (next >= available) {
+                    return -1;
+                }
+                if (available - next > slots.length()) {
+                    next = available - slots.length();
+                }
+                Entry entry = slots.get((int) (next & mask));
+                if (entry == null || entry.sequence < next) {
+                    // claimed but not stored yet, it is read on the next poll
+                    return -1;
+                }
+                long sequence = next++;
+                if (entry.sequence != sequence || entry.producer == worker) {
+                    continue;
+                }
+                if (!remember(entry.hash)) {
+                    stats.duplicateClauses++;
+                    continue;
+                }
+                literals.clear();
+                for (int literal : entry.literals) {
+                    literals.add(literal);
+                }
+                stats.importedClauses++;
+                return entry.lbd;
+            }
+        }
+    }
+
+    // hash of the literal set, independent of the literal order
+    private static long hash(int[] clause) {
+        int[] sorted = clause.clone();
+        Arrays.sort(sorted);
+        long hash = 0xcbf29ce484222325L;
+        for (int literal : sorted) {
+            hash = (hash ^ literal) * 0x100000001b3L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+}
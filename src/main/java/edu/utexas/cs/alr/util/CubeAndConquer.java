@@ -0,0 +1,182 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Cube-and-conquer: the search space is split into cubes, conjunctions of
+// literals that together cover every assignment, and each cube is solved on
+// its own as assumptions of a CDCL solver.
+//
+// Cube phase: starting from the empty cube, lookahead picks a variable to
+// split on and both extensions of the cube are split further, up to a fixed
+// depth. Cubes whose literals already propagate to a conflict are dropped.
+//
+// Conquer phase: the cubes are tasks on a ForkJoinPool, whose idle threads
+// steal tasks from busy ones. A task solves its cube with a conflict limit. If
+// the limit is hit the cube is split again on the most active variable of the
+// solver, and the two new cubes become subtasks with twice the limit. The
+// first subtask keeps solving on the solver of its parent, with everything it
+// learned. The second one may run on another thread at the same time, it gets
+// a new solver that starts with the short learned clauses and level 0 facts of
+// the parent. Every solver shares the frozen arena of the formula through an
+// arena of its own layered on top of it.
+//
+// The formula is SAT as soon as one cube is, the remaining tasks are then
+// interrupted. It is UNSAT once every cube has been refuted.
+public class CubeAndConquer {
+    private static final int LOOKAHEAD_CANDIDATES = 20; // variables lookahead evaluates per split
+    private static final int INITIAL_CONFLICT_LIMIT = 2000; // conflicts per cube before it is split again
+
+    private final ClauseArena arena; // frozen, every solver layers an arena of its own on top
+    private final SolverOptions options;
+    private final int cubeDepth;
+
+    private final AtomicReference<CDCLSolver> winner; // solver that found a model
+    private final Queue<CDCLSolver> running; // solvers to interrupt once a model is found
+    private int cubes;
+
+    public CubeAndConquer(ClauseArena arena, SolverOptions options) {
+        this.arena = arena;
+        arena.freeze();
+        // solvers run side by side, none of them reports reductions
+        this.options = options.copy();
+        this.options.printStats = false;
+        // a few cubes per thread so work stealing can balance them
+        this.cubeDepth = 32 - Integer.numberOfLeadingZeros(Math.max(4 * options.threads - 1, 1));
+        this.winner = new AtomicReference<>();
+        this.running = new ConcurrentLinkedQueue<>();
+    }
+
+    // Generates the cubes and solves them on options.threads threads
+    public boolean solve() {
+        List<int[]> initialCubes = new ArrayList<>();
+        CDCLSolver lookahead = new CDCLSolver(new ClauseArena(arena), options);
+        makeCubes(lookahead, new int[0], initialCubes);
+        cubes = initialCubes.size();
+
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        try {
+            List<CubeTask> tasks = new ArrayList<>();
+            for (int[] cube : initialCubes) {
+                tasks.add(new CubeTask(cube, INITIAL_CONFLICT_LIMIT, null, null));
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        return winner.get() != null;
+    }
+
+    // value of a variable in the model found by the solver of the satisfiable cube
+    public boolean modelValue(int variable) {
+        return winner.get().modelValue(variable);
+    }
+
+    // number of cubes solved, including the ones from splitting cubes again
+    public int getCubes() {
+        return cubes;
+    }
+
+    // Splits cube recursively by lookahead and adds the leaves to result
+    private void makeCubes(CDCLSolver lookahead, int[] cube, List<int[]> result) {
+        int variable = cube.length < cubeDepth ? lookahead.lookahead(cube, LOOKAHEAD_CANDIDATES) : 0;
+        if (variable < 0) {
+            return; // refuted by propagation
+        }
+        if (variable == 0) {
+            result.add(cube);
+            return;
+        }
+        makeCubes(lookahead, extend(cube, Literal.of(variable, false)), result);
+        makeCubes(lookahead, extend(cube, Literal.of(variable, true)), result);
+    }
+
+    private static int[] extend(int[] cube, int literal) {
+        int[] extended = Arrays.copyOf(cube, cube.length + 1);
+        extended[cube.length] = literal;
+        return extended;
+    }
+
+    // A solver on a new layer over the arena, which also gets the inherited clauses
+    private CDCLSolver newSolver(List<int[]> inherited) {
+        ClauseArena clauses = new ClauseArena(arena);
+        if (inherited != null) {
+            for (int[] clause : inherited) {
+                clauses.allocate(clause, clause.length, false);
+            }
+        }
+        return new CDCLSolver(clauses, options);
+    }
+
+    private final class CubeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cube;
+        private final long conflictLimit; // conflicts this task may spend
+        private final transient CDCLSolver solver; // of the parent task, null to create one
+        private final transient List<int[]> inherited; // clauses a created solver starts with
+
+        CubeTask(int[] cube, long conflictLimit, CDCLSolver solver, List<int[]> inherited) {
+            this.cube = cube;
+            this.conflictLimit = conflictLimit;
+            this.solver = solver;
+            this.inherited = inherited;
+        }
+
+        @Override
+        protected void compute() {
+            if (winner.get() != null) {
+                return;
+            }
+            CDCLSolver solver = this.solver != null ? this.solver : newSolver(inherited);
+            long conflicts = solver.getStats().conflicts;
+            solver.setConflictLimit(conflictLimit == Long.MAX_VALUE ? Long.MAX_VALUE : conflicts + conflictLimit);
+            running.add(solver);
+            if (winner.get() != null) {
+                solver.interrupt(); // a model was found while this solver was created
+            }
+            boolean satisfiable;
+            try {
+                satisfiable = solver.solve(cube);
+            } finally {
+                running.remove(solver);
+            }
+            if (satisfiable) {
+                if (winner.compareAndSet(null, solver)) {
+                    for (CDCLSolver other : running) {
+                        other.interrupt();
+                    }
+                }
+                return;
+            }
+            if (!solver.isInterrupted() || winner.get() != null) {
+                return; // refuted, or stopped because another cube is satisfiable
+            }
+            // the cube took too long, split it on the variable the solver found most important
+            int variable = solver.mostActiveVariable(cube);
+            if (variable == 0) {
+                // nothing left to split on, keep solving without a limit
+                invokeAll(new CubeTask(cube, Long.MAX_VALUE, solver, null));
+                return;
+            }
+            synchronized (CubeAndConquer.this) {
+                cubes += 2;
+            }
+            // read before the first subtask changes the solver
+            List<int[]> learned = solver.getSharableClauses();
+            invokeAll(new CubeTask(extend(cube, Literal.of(variable, false)), 2 * conflictLimit, solver, null),
+                    new CubeTask(extend(cube, Literal.of(variable, true)), 2 * conflictLimit, null, learned));
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package edu.utexas.cs.alr.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Writes a DRAT proof of unsatisfiability: every clause the solver derives is
+// added, every clause it throws away is deleted, and an UNSAT run ends with the
+// empty clause. A checker replays the steps against the original formula.
+//
+// The binary format writes 'a' or 'd' followed by the literals and a 0 byte.
+// Each literal is the unsigned number 2 * variable + sign, which is exactly
+// its literal code, in 7-bit groups, low group first, with the high bit set
+// on every byte but the last. The text format writes DIMACS style lines,
+// "1 -2 0" for an addition and "d 1 -2 0" for a deletion, and is meant for
+// reading a proof by hand.
+//
+// In LRAT mode every clause has an id, the clauses of the formula are 1 to m
+// in arena order and each addition takes the next one. An addition lists its
+// hints after the literals: the ids of the clauses that, in this order, become
+// unit or false under the negation of the added clause, so a checker needs no
+// search. Whoever derives a clause puts its hints in hints() before it is
+// added. A deletion names the clause by id. In text an addition is
+// "id literals 0 hints 0" and a deletion "id d ids 0". The binary format writes
+// ids and hints as 2 * id + sign like literals.
+//
+// The solver thread encodes steps into a direct ByteBuffer. A full buffer is
+// handed to a writer thread, which writes it to the file while the solver fills
+// the other one, so the search only waits when the disk cannot keep up.
+public class DratProof implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 22; // bytes per buffer, two of them take turns
+    private static final int MAX_LITERAL_BYTES = 12; // longest encoding of one literal, "-2147483647 " in text
+    private static final ByteBuffer END = ByteBuffer.allocate(0); // tells the writer thread to stop
+
+    private final boolean binary;
+    private final boolean lrat;
+    private final IntVec hints; // hints of the next addition in LRAT mode
+    private int lastId; // id of the clause added last, in LRAT mode
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> full; // buffers waiting to be written, in order
+    private final BlockingQueue<ByteBuffer> free; // written buffers the solver can fill again
+    private final Thread writer;
+    private volatile IOException failure; // first error of the writer thread
+    private ByteBuffer buffer; // the buffer being filled
+    private boolean closed;
+
+    private long additions;
+    private long deletions;
+
+    // Creates or truncates the file. binary selects the binary format, otherwise
+    // text, lrat selects LRAT with clause ids and hints, otherwise DRAT
+    public DratProof(String path, boolean binary, boolean lrat) throws IOException {
+        this.binary = binary;
+        this.lrat = lrat;
+        this.hints = new IntVec();
+        this.lastId = 0;
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.full = new ArrayBlockingQueue<>(2);
+        this.free = new ArrayBlockingQueue<>(2);
+        this.free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.writer = new Thread(this::writeBuffers, "drat-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public boolean isLrat() {
+        return lrat;
+    }
+
+    // Gives the next clause of the formula its id, in LRAT mode
+    public int originalId() {
+        return ++lastId;
+    }
+
+    // the hints of the next addition, filled by the caller in LRAT mode
+    public IntVec hints() {
+        return hints;
+    }
+
+    // Adds the clause of size literals starting at literals[offset] and returns
+    // its id, 0 for DRAT. In LRAT mode the hints are written and cleared
+    public int add(int[] literals, int offset, int size) {
+        checkOpen();
+        additions++;
+        if (!lrat) {
+            ensureSpace(1);
+            if (binary) {
+                buffer.put((byte) 'a');
+            }
+            putLiterals(literals, offset, size);
+            putEnd();
+            return 0;
+        }
+        lastId++;
+        ensureSpace(MAX_LITERAL_BYTES + 1);
+        if (binary) {
+            buffer.put((byte) 'a');
+        }
+        putNumber(lastId);
+        putLiterals(literals, offset, size);
+        putSeparator();
+        for (int i = 0; i < hints.size(); i++) {
+            ensureSpace(MAX_LITERAL_BYTES);
+            putNumber(hints.get(i));
+        }
+        putEnd();
+        hints.clear();
+        return lastId;
+    }
+
+    public int add(int... literals) {
+        return add(literals, 0, literals.length);
+    }
+
+    // Deletes the clause of size literals starting at literals[offset], in DRAT mode
+    public void delete(int[] literals, int offset, int size) {
+        checkOpen();
+        deletions++;
+        ensureSpace(2);
+        if (binary) {
+            buffer.put((byte) 'd');
+        } else {
+            buffer.put((byte) 'd').put((byte) ' ');
+        }
+        putLiterals(literals, offset, size);
+        putEnd();
+    }
+
+    public void delete(int... literals) {
+        delete(literals, 0, literals.length);
+    }
+
+    // Deletes the clause with the given id, in LRAT mode
+    public void deleteId(int id) {
+        checkOpen();
+        deletions++;
+        ensureSpace(2 * MAX_LITERAL_BYTES + 2);
+        if (binary) {
+            buffer.put((byte) 'd');
+        } else {
+            putNumber(lastId);
+            buffer.put((byte) 'd').put((byte) ' ');
+        }
+        putNumber(id);
+        putEnd();
+    }
+
+    public long getAdditions() {
+        return additions;
+    }
+
+    public long getDeletions() {
+        return deletions;
+    }
+
+    // Writes the rest of the proof, stops the writer thread and closes the file.
+    // Throws the error of the writer thread if writing failed at some point
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            buffer.flip();
+            full.put(buffer);
+            full.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the proof", e);
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The proof is closed");
+        }
+    }
+
+    private void putLiterals(int[] literals, int offset, int size) {
+        for (int i = offset; i < offset + size; i++) {
+            ensureSpace(MAX_LITERAL_BYTES);
+            if (binary) {
+                putVarint(literals[i]);
+            } else {
+                putText(Literal.isNegated(literals[i]) ? -Literal.variable(literals[i]) : Literal.variable(literals[i]));
+            }
+        }
+    }
+
+    // an id or hint, which may be negative, in the encoding of a literal
+    private void putNumber(int number) {
+        if (binary) {
+            putVarint(number < 0 ? 2 * -number + 1 : 2 * number);
+        } else {
+            putText(number);
+        }
+    }
+
+    // the 0 between the literals and the hints of an LRAT addition
+    private void putSeparator() {
+        ensureSpace(2);
+        if (binary) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) '0').put((byte) ' ');
+        }
+    }
+
+    // the 0 that ends a step
+    private void putEnd() {
+        ensureSpace(2);
+        if (binary) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) '0').put((byte) '\n');
+        }
+    }
+
+    private void putVarint(int code) {
+        while ((code & ~0x7F) != 0) {
+            buffer.put((byte) ((code & 0x7F) | 0x80));
+            code >>>= 7;
+        }
+        buffer.put((byte) code);
+    }
+
+    // a number in decimal followed by a space
+    private void putText(int number) {
+        if (number < 0) {
+            buffer.put((byte) '-');
+            number = -number;
+        }
+        int digits = 1;
+        for (int rest = number / 10; rest > 0; rest /= 10) {
+            digits *= 10;
+        }
+        for (; digits > 0; digits /= 10) {
+            buffer.put((byte) ('0' + number / digits % 10));
+        }
+        buffer.put((byte) ' ');
+    }
+
+    // hands the buffer to the writer thread if fewer than bytes are left in it
+    private void ensureSpace(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Writing the proof failed", failure);
+        }
+        try {
+            buffer.flip();
+            full.put(buffer);
+            buffer = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the proof", e);
+        }
+    }
+
+    // Body of the writer thread. After an error it keeps taking buffers without
+    // writing them, so the solver never blocks, and reports the error later
+    private void writeBuffers() {
+        try {
+            while (true) {
+                ByteBuffer next = full.take();
+                if (next == END) {
+                    return;
+                }
+                try {
+                    while (failure == null && next.hasRemaining()) {
+                        channel.write(next);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+                next.clear();
+                free.put(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
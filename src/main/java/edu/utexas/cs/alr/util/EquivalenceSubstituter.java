@@ -0,0 +1,227 @@
+package edu.utexas.cs.alr.util;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+// Replaces equivalent literals by one representative literal, run on the
+// original clauses before search. A binary clause (a | b) is the pair of
+// implications !a -> b and !b -> a. Literals in the same strongly connected
+// component of this implication graph imply each other and so are equivalent.
+// Tseitin encodings of equivalences and double negations produce many of them.
+//
+// Components are found with Tarjan's algorithm, written with an explicit stack
+// so long implication chains cannot overflow the call stack. The literal with
+// the smallest code represents its component, the component of the negated
+// literals is then represented by the negated representative. A component that
+// holds a literal and its negation makes the formula unsatisfiable.
+//
+// Substituted variables disappear from the formula, extendModel() gives each
+// one the value of its representative.
+public class EquivalenceSubstituter {
+    private final ClauseArena arena;
+    private final int numVariables;
+    private int[] representatives; // per literal code, the literal replacing it, itself if it stays
+
+    private int substitutedVariables;
+    private int removedClauses;
+
+    public EquivalenceSubstituter(ClauseArena arena, int numVariables) {
+        this.arena = arena;
+        this.numVariables = numVariables;
+        this.representatives = new int[2 * (numVariables + 1)];
+        for (int code = 0; code < representatives.length; code++) {
+            representatives[code] = code;
+        }
+    }
+
+    // Finds the equivalent literals, substitutes them in every clause and
+    // compacts the arena. Returns false if some literal is equivalent to its
+    // own negation
+    public boolean substitute() {
+        if (!findComponents(buildImplicationGraph())) {
+            return false;
+        }
+        if (substitutedVariables > 0) {
+            replaceLiterals();
+        }
+        arena.compact();
+        return true;
+    }
+
+    // Sets every substituted variable of model to the value of its representative.
+    // model is indexed by variable
+    public void extendModel(boolean[] model) {
+        for (int variable = 1; variable <= numVariables; variable++) {
+            int representative = representatives[Literal.of(variable, false)];
+            if (Literal.variable(representative) != variable) {
+                model[variable] = model[Literal.variable(representative)] != Literal.isNegated(representative);
+            }
+        }
+    }
+
+    public void print(PrintStream out) {
+        out.println("c substituted variables " + substitutedVariables);
+        out.println("c substitution removed  " + removedClauses);
+    }
+
+    // The implication graph in compressed form: the successors of literal code l
+    // are edges[starts[l]] up to edges[starts[l + 1]]. Returns { starts, edges }
+    private int[][] buildImplicationGraph() {
+        int[] starts = new int[representatives.length + 1];
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (isBinary(cref)) {
+                starts[Literal.negate(arena.literal(cref, 0)) + 1]++;
+                starts[Literal.negate(arena.literal(cref, 1)) + 1]++;
+            }
+        }
+        for (int code = 0; code < representatives.length; code++) {
+            starts[code + 1] += starts[code];
+        }
+        int[] edges = new int[starts[representatives.length]];
+        int[] fill = Arrays.copyOf(starts, representatives.length);
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (isBinary(cref)) {
+                int first = arena.literal(cref, 0);
+                int second = arena.literal(cref, 1);
+                edges[fill[Literal.negate(first)]++] = second;
+                edges[fill[Literal.negate(second)]++] = first;
+            }
+        }
+        return new int[][] { starts, edges };
+    }
+
+    private boolean isBinary(int cref) {
+        return !arena.isDeleted(cref) && arena.size(cref) == 2;
+    }
+
+    // Iterative Tarjan. Each frame of the call stack is a literal together with
+    // the position of the next successor edge to follow. Sets the representatives
+    // and returns false if a component contains complementary literals
+    private boolean findComponents(int[][] graph) {
+        int[] starts = graph[0];
+        int[] edges = graph[1];
+        int nodes = representatives.length;
+        int[] index = new int[nodes]; // visiting order starting at 1, 0 for unvisited literals
+        int[] low = new int[nodes]; // smallest index reachable through the subtree and one back edge
+        boolean[] onStack = new boolean[nodes];
+        int[] componentStack = new int[nodes];
+        int componentTop = 0;
+        int[] callLiterals = new int[nodes];
+        int[] callEdges = new int[nodes];
+        int callTop = 0;
+        int counter = 0;
+
+        for (int root = 2; root < nodes; root++) {
+            if (index[root] != 0 || starts[root] == starts[root + 1]) {
+                continue;
+            }
+            index[root] = low[root] = ++counter;
+            componentStack[componentTop++] = root;
+            onStack[root] = true;
+            callLiterals[callTop] = root;
+            callEdges[callTop++] = starts[root];
+
+            while (callTop > 0) {
+                int literal = callLiterals[callTop - 1];
+                int edge = callEdges[callTop - 1];
+                if (edge < starts[literal + 1]) {
+                    callEdges[callTop - 1]++;
+                    int successor = edges[edge];
+                    if (index[successor] == 0) {
+                        index[successor] = low[successor] = ++counter;
+                        componentStack[componentTop++] = successor;
+                        onStack[successor] = true;
+                        callLiterals[callTop] = successor;
+                        callEdges[callTop++] = starts[successor];
+                    } else if (onStack[successor]) {
+                        low[literal] = Math.min(low[literal], index[successor]);
+                    }
+                    continue;
+                }
+
+                // all successors are done, literal is finished
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callLiterals[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[literal]);
+                }
+                if (low[literal] != index[literal]) {
+                    continue;
+                }
+                // literal is the root of a component, which sits on top of the stack
+                int bottom = componentTop;
+                int representative = literal;
+                do {
+                    int member = componentStack[--bottom];
+                    onStack[member] = false;
+                    representative = Math.min(representative, member);
+                } while (componentStack[bottom] != literal);
+                for (int i = bottom; i < componentTop; i++) {
+                    representatives[componentStack[i]] = representative;
+                }
+                // the negations form the mirrored component, unless they are in this one
+                for (int i = bottom; i < componentTop; i++) {
+                    int member = componentStack[i];
+                    if (representatives[Literal.negate(member)] == representative) {
+                        addRefutation(member);
+                        return false;
+                    }
+                    if (!Literal.isNegated(member) && Literal.variable(representative) != Literal.variable(member)) {
+                        substitutedVariables++;
+                    }
+                }
+                componentTop = bottom;
+            }
+        }
+        return true;
+    }
+
+    // A literal equivalent to its negation refutes the formula. The unit clause
+    // of the literal follows by propagation along the implications from its
+    // negation, the empty clause then by propagation back. Both go into the
+    // arena so that a proof attached to it records the refutation
+    private void addRefutation(int literal) {
+        IntVec literals = new IntVec();
+        literals.add(literal);
+        arena.allocate(literals, false);
+        literals.clear();
+        arena.allocate(literals, false);
+    }
+
+    // Rewrites every clause over the representatives. Clauses that become
+    // tautologies are deleted, duplicate literals are dropped. The old clauses
+    // are deleted only after all rewritten ones exist, so the implications the
+    // rewriting relies on are still there for a proof checker
+    private void replaceLiterals() {
+        IntVec literals = new IntVec();
+        int[] marks = new int[representatives.length];
+        int stamp = 0;
+        IntVec replaced = new IntVec();
+        int end = arena.end(); // rewritten clauses are appended behind the old ones
+        for (int cref = 0; cref < end; cref = arena.next(cref)) {
+            if (arena.isDeleted(cref)) {
+                continue;
+            }
+            boolean changed = false;
+            literals.clear();
+            for (int k = 0; k < arena.size(cref); k++) {
+                int literal = arena.literal(cref, k);
+                changed |= representatives[literal] != literal;
+                literals.add(representatives[literal]);
+            }
+            if (!changed) {
+                continue;
+            }
+            stamp++;
+            if (!CNFConverter.normalizeClause(literals, marks, stamp)) {
+                removedClauses++;
+            } else {
+                arena.allocate(literals, arena.isLearned(cref));
+            }
+            replaced.add(cref);
+        }
+        for (int i = 0; i < replaced.size(); i++) {
+            arena.markDeleted(replaced.get(i));
+        }
+    }
+}
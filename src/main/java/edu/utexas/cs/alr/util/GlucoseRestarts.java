@@ -0,0 +1,77 @@
+package edu.utexas.cs.alr.util;
+
+// Glucose style dynamic restarts. A fast and a slow exponential moving average
+// of the LBD of learned clauses are kept; when recent clauses are clearly worse
+// than the long term average the solver is assumed to be stuck in a bad part of
+// the search space and restarts.
+public class GlucoseRestarts implements RestartPolicy {
+    private static final double FAST_ALPHA = 1.0 / 32;
+    private static final double SLOW_ALPHA = 1.0 / 100000;
+    private static final double MARGIN = 1.25; // fast average must exceed the slow one by this factor
+    private static final int MIN_CONFLICTS = 50; // conflicts between restarts, lets the fast average settle
+
+    private final MovingAverage fast;
+    private final MovingAverage slow;
+    private long conflictsSinceRestart;
+
+    public GlucoseRestarts() {
+        this.fast = new MovingAverage(FAST_ALPHA);
+        this.slow = new MovingAverage(SLOW_ALPHA);
+        this.conflictsSinceRestart = 0;
+    }
+
+    @Override
+    public void onConflict(int lbd) {
+        conflictsSinceRestart++;
+        fast.update(lbd);
+        slow.update(lbd);
+    }
+
+    @Override
+    public boolean shouldRestart() {
+        return conflictsSinceRestart >= MIN_CONFLICTS && fast.value() > MARGIN * slow.value();
+    }
+
+    @Override
+    public void onRestart() {
+        conflictsSinceRestart = 0;
+    }
+
+    // Exponential moving average. Starting from 0 with the final alpha would
+    // make the average ignore its first samples for a long time, so the
+    // smoothing factor starts at 1 and is halved after 1, 3, 7, 15, ... samples
+    // until it reaches alpha, which keeps the early value close to the plain mean
+    private static class MovingAverage {
+        private final double alpha;
+        private double beta;
+        private double value;
+        private long wait; // samples left before beta is halved again
+        private long period;
+
+        MovingAverage(double alpha) {
+            this.alpha = alpha;
+            this.beta = 1.0;
+            this.value = 0.0;
+            this.wait = 0;
+            this.period = 0;
+        }
+
+        void update(double sample) {
+            value += beta * (sample - value);
+            if (beta <= alpha) {
+                return;
+            }
+            if (wait > 0) {
+                wait--;
+                return;
+            }
+            period = 2 * (period + 1) - 1;
+            wait = period;
+            beta = Math.max(alpha, beta / 2);
+        }
+
+        double value() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+
+// Binary max-heap over the ints 0..capacity-1 ordered by an external key
+// array. The heap remembers the position of every element, so membership
+// checks are O(1) and an element whose key grew can be moved up in
+// O(log n) without searching for it.
+public class IndexedHeap {
+    private final double[] keys; // shared with the owner, who updates keys then calls increased()
+    private int[] heap; // heap[i] is the element stored at position i
+    private int[] positions; // positions[e] is the index of e in heap, -1 if e is not in the heap
+    private int size;
+
+    public IndexedHeap(double[] keys) {
+        this.keys = keys;
+        this.heap = new int[keys.length];
+        this.positions = new int[keys.length];
+        Arrays.fill(positions, -1);
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int element) {
+        return positions[element] >= 0;
+    }
+
+    public void insert(int element) {
+        if (contains(element)) {
+            return;
+        }
+        heap[size] = element;
+        positions[element] = size;
+        size++;
+        siftUp(size - 1);
+    }
+
+    // Restores the heap order after the key of element was raised
+    public void increased(int element) {
+        if (contains(element)) {
+            siftUp(positions[element]);
+        }
+    }
+
+    // Restores the heap order after the key of element was lowered
+    public void decreased(int element) {
+        if (contains(element)) {
+            siftDown(positions[element]);
+        }
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    // Removes and returns the element with the largest key
+    public int removeMax() {
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    public void remove(int element) {
+        int position = positions[element];
+        if (position < 0) {
+            return;
+        }
+        size--;
+        positions[element] = -1;
+        if (position == size) {
+            return;
+        }
+        int moved = heap[size];
+        heap[position] = moved;
+        positions[moved] = position;
+        siftUp(position);
+        siftDown(positions[moved]);
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int element = heap[position];
+        double key = keys[element];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (keys[heap[parent]] >= key) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = element;
+        positions[element] = position;
+    }
+
+    private void siftDown(int position) {
+        int element = heap[position];
+        double key = keys[element];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] > keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[child]] <= key) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = element;
+        positions[element] = position;
+    }
+}
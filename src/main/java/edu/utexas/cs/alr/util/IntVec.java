@@ -0,0 +1,79 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+
+// Growable array of primitive ints. Used for watch lists, clause reference
+// lists and literal buffers so the solver never boxes literals or clause
+// references into Integer objects.
+public class IntVec {
+    private int[] data;
+    private int size;
+
+    public IntVec() {
+        this(4);
+    }
+
+    public IntVec(int capacity) {
+        this.data = new int[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int i) {
+        return data[i];
+    }
+
+    public void set(int i, int value) {
+        data[i] = value;
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    public int last() {
+        return data[size - 1];
+    }
+
+    public int pop() {
+        return data[--size];
+    }
+
+    // drops every element at index newSize and above
+    public void shrink(int newSize) {
+        size = newSize;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int value) {
+        for (int i = 0; i < size; i++) {
+            if (data[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Direct access to the backing array for hot loops, only the first size()
+    // entries are meaningful and the array is replaced when the vector grows
+    int[] rawData() {
+        return data;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,140 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Keeps track of the learned clauses and periodically throws away the less
+// useful half of them, so memory and propagation cost do not grow without
+// bound. Each learned clause has its LBD, computed when it is learned, and an
+// activity that is bumped whenever the clause takes part in conflict analysis.
+// Glue clauses (LBD <= GLUE_LBD) are kept forever. Of the rest, clauses with a
+// higher LBD go first, ties are broken by lower activity. Clauses that are
+// currently the reason of an assignment are never deleted.
+public class LearnedClauseDatabase {
+    private static final int GLUE_LBD = 2;
+    private static final int FIRST_REDUCE = 2000; // conflicts before the first reduction
+    private static final int REDUCE_INCREMENT = 300; // the interval between reductions grows by this much
+    private static final double CLAUSE_DECAY = 0.999;
+    private static final double RESCALE_LIMIT = 1e20;
+    private static final int MAX_SORT_LBD = 0x7FFF;
+
+    private final ClauseArena arena;
+    private IntVec clauses; // references of the learned clauses, in learning order
+    private double increment; // activity added by a bump, grows instead of decaying all activities
+    private long nextReduce; // conflict count at which the next reduction is due
+    private long reduceInterval;
+    private int lastKept;
+    private int lastDeleted;
+
+    public LearnedClauseDatabase(ClauseArena arena) {
+        this.arena = arena;
+        this.clauses = new IntVec();
+        this.increment = 1.0;
+        this.reduceInterval = FIRST_REDUCE;
+        this.nextReduce = FIRST_REDUCE;
+        this.lastKept = 0;
+        this.lastDeleted = 0;
+    }
+
+    public IntVec getClauses() {
+        return clauses;
+    }
+
+    public int size() {
+        return clauses.size();
+    }
+
+    // clauses kept and deleted by the most recent reduction
+    public int getLastKept() {
+        return lastKept;
+    }
+
+    public int getLastDeleted() {
+        return lastDeleted;
+    }
+
+    // Registers a clause that was just learned and allocated in the arena
+    public void add(int cref, int lbd) {
+        arena.setLbd(cref, lbd);
+        arena.setActivity(cref, (float) increment);
+        clauses.add(cref);
+    }
+
+    public void bump(int cref) {
+        double activity = arena.getActivity(cref) + increment;
+        arena.setActivity(cref, (float) activity);
+        if (activity > RESCALE_LIMIT) {
+            rescale();
+        }
+    }
+
+    // Called once per conflict, makes older bumps relatively less important
+    public void decayAll() {
+        increment /= CLAUSE_DECAY;
+    }
+
+    public boolean shouldReduce(long conflicts) {
+        return conflicts >= nextReduce;
+    }
+
+    // Deletes the worse half of the clauses that are neither glue nor locked and
+    // returns how many were deleted. Deleted clauses are only marked in the arena,
+    // the caller has to drop them from its watch lists
+    public int reduce(IntPredicate isLocked) {
+        // sort keys put the clause to delete first at the front, higher LBD first,
+        // then lower activity. The cref sits in the low 32 bits
+        long[] candidates = new long[clauses.size()];
+        int count = 0;
+        for (int i = 0; i < clauses.size(); i++) {
+            int cref = clauses.get(i);
+            if (arena.getLbd(cref) <= GLUE_LBD || isLocked.test(cref)) {
+                continue;
+            }
+            candidates[count++] = sortKey(cref);
+        }
+        Arrays.sort(candidates, 0, count);
+        int deleted = count / 2;
+        for (int i = 0; i < deleted; i++) {
+            arena.markDeleted((int) candidates[i]);
+        }
+
+        int kept = 0;
+        for (int i = 0; i < clauses.size(); i++) {
+            int cref = clauses.get(i);
+            if (!arena.isDeleted(cref)) {
+                clauses.set(kept++, cref);
+            }
+        }
+        clauses.shrink(kept);
+
+        reduceInterval += REDUCE_INCREMENT;
+        nextReduce += reduceInterval;
+        lastKept = kept;
+        lastDeleted = deleted;
+        return deleted;
+    }
+
+    // Updates the references after the arena has been compacted
+    public void relocate(int[] forward) {
+        for (int i = 0; i < clauses.size(); i++) {
+            clauses.set(i, forward[clauses.get(i)]);
+        }
+    }
+
+    // Packs 15 bits of inverted LBD, the upper 16 bits of the float activity and
+    // the cref into one long, so an ascending sort orders clauses from least to
+    // most useful. Activities are positive, whose float bits sort like the values
+    private long sortKey(int cref) {
+        long lbd = Math.min(arena.getLbd(cref), MAX_SORT_LBD);
+        long activity = Float.floatToRawIntBits(arena.getActivity(cref)) >>> 16;
+        return ((MAX_SORT_LBD - lbd) << 48) | (activity << 32) | cref;
+    }
+
+    private void rescale() {
+        for (int i = 0; i < clauses.size(); i++) {
+            int cref = clauses.get(i);
+            arena.setActivity(cref, (float) (arena.getActivity(cref) / RESCALE_LIMIT));
+        }
+        increment /= RESCALE_LIMIT;
+    }
+}
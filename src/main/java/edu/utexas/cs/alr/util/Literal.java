@@ -1,41 +1,44 @@
 package edu.utexas.cs.alr.util;
 
-public class Literal {
-    private final int variable;
-    private final boolean isNegated;
+// Literals are plain ints so that clauses can be stored as packed int arrays.
+// Variable x is encoded as 2 * x and !x as 2 * x + 1, which makes negation a
+// single xor and lets the code double as an index into per-literal tables
+// such as the watch lists.
+public final class Literal {
 
-    public Literal(int variable, boolean isNegated) {
-        this.variable = variable;
-        this.isNegated = isNegated;
+    private Literal() {
     }
 
-    // Getters
-    public int getVariable() {
-        return variable;
+    public static int of(int variable, boolean isNegated) {
+        return 2 * variable + (isNegated ? 1 : 0);
     }
 
-    public boolean isNegated() {
-        return isNegated;
+    public static int variable(int literal) {
+        return literal >> 1;
     }
 
-    // Returns a negated version of the literal
+    public static boolean isNegated(int literal) {
+        return (literal & 1) != 0;
+    }
+
+    // Returns the negated literal
     // i.e. if literal is !x1, it returns x1,
     // if literal is x1 it returns !x1.
-    public Literal negate() {
-        // Create a new Literal with the same variable but opposite negation status
-        return new Literal(this.variable, !this.isNegated);
+    public static int negate(int literal) {
+        return literal ^ 1;
+    }
+
+    // Converts a signed DIMACS literal (x1 = 1, !x1 = -1) to its code
+    public static int fromDimacs(int dimacs) {
+        return of(Math.abs(dimacs), dimacs < 0);
     }
 
-    //Checks if another literal is the negation of this literal
-    public boolean isNegationOf(Literal otherLiteral) {
-        return this.variable == otherLiteral.variable && this.isNegated != otherLiteral.isNegated;
+    public static int toDimacs(int literal) {
+        return isNegated(literal) ? -variable(literal) : variable(literal);
     }
 
-    @Override
-    public String toString() {
-        // Represents the literal assignment in a readable format
-        String literalRepresentation = (this.isNegated() ? "!" : "") + "x" + this.getVariable();
-        return literalRepresentation;
+    public static String toString(int literal) {
+        // Represents the literal in a readable format
+        return (isNegated(literal) ? "!" : "") + "x" + variable(literal);
     }
-    
-}
\ No newline at end of file
+}
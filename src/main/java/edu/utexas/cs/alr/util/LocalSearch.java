@@ -0,0 +1,299 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Stochastic local search on the clauses of an arena: starting from a full
+// assignment, it repeatedly picks an unsatisfied clause and flips one of its
+// variables until no clause is unsatisfied or the flip budget is used up. It
+// can find models fast, it can never show that there are none.
+//
+// Two pick rules choose the variable to flip. Both rank the variables of the
+// clause by their break count, the number of clauses that become unsatisfied
+// when the variable flips:
+//  - ProbSAT picks variable v with probability proportional to
+//    (PROBSAT_EPS + break(v))^-PROBSAT_CB.
+//  - WalkSAT flips a variable that breaks nothing if there is one, otherwise a
+//    random variable of the clause with probability WALKSAT_NOISE, otherwise
+//    one with the lowest break count.
+//
+// Break counts are cached and updated on every flip. For that every clause
+// keeps its number of true literals and the xor of the variables of its true
+// literals, which is the variable of its only true literal when the count is
+// one. Unsatisfied clauses are kept in a list, each clause knows its position
+// so it is added and removed in O(1).
+//
+// The clauses are read from the arena in place, by reference. Learned and
+// deleted clauses are skipped, the arena must not change while the search is
+// in use.
+public class LocalSearch {
+    private static final double PROBSAT_CB = 2.06; // polynomial break weight, tuned for 3-SAT
+    private static final double PROBSAT_EPS = 0.9;
+    private static final int MAX_BREAK = 64; // break counts above this share one ProbSAT weight
+    private static final double WALKSAT_NOISE = 0.567; // chance of a random flip when every flip breaks a clause
+
+    private final ClauseArena arena;
+    private final boolean probSat;
+    private final Random random;
+    private final double[] breakWeights; // ProbSAT weight per break count
+    private double[] candidateWeights; // scratch space of the ProbSAT pick
+
+    private final int[] crefs; // clause index to clause reference
+    private final IntVec[] occurrences; // per literal code, indices of the clauses containing it
+    private final boolean emptyClause; // some clause can never be satisfied
+
+    private final boolean[] values; // current assignment, true for the positive literal
+    private final boolean[] bestValues; // assignment with the fewest unsatisfied clauses so far
+    private final IntVec flippedSinceBest; // variables flipped since bestValues was current
+    private int bestUnsatisfied;
+
+    private final int[] trueCounts; // per clause, true literals under values
+    private final int[] trueXor; // per clause, xor of the variables of its true literals
+    private final int[] breaks; // per variable, clauses only it satisfies
+    private final IntVec unsatisfied; // indices of the unsatisfied clauses
+    private final int[] positions; // per clause, its index in unsatisfied or -1
+
+    private long flips;
+
+    // The initial assignment is random, setValue() replaces it before run()
+    public LocalSearch(ClauseArena arena, int numVariables, boolean probSat, long seed) {
+        this.arena = arena;
+        this.probSat = probSat;
+        this.random = new Random(seed);
+        this.breakWeights = new double[MAX_BREAK + 1];
+        for (int b = 0; b <= MAX_BREAK; b++) {
+            breakWeights[b] = Math.pow(PROBSAT_EPS + b, -PROBSAT_CB);
+        }
+        this.candidateWeights = new double[8];
+
+        IntVec clauseList = new IntVec();
+        boolean empty = false;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (!arena.isDeleted(cref) && !arena.isLearned(cref)) {
+                clauseList.add(cref);
+                empty |= arena.size(cref) == 0;
+            }
+        }
+        this.crefs = clauseList.toArray();
+        this.emptyClause = empty;
+        this.occurrences = new IntVec[2 * (numVariables + 1)];
+        for (int code = 0; code < occurrences.length; code++) {
+            occurrences[code] = new IntVec(2);
+        }
+        for (int c = 0; c < crefs.length; c++) {
+            for (int k = 0; k < arena.size(crefs[c]); k++) {
+                occurrences[arena.literal(crefs[c], k)].add(c);
+            }
+        }
+
+        this.values = new boolean[numVariables + 1];
+        this.bestValues = new boolean[numVariables + 1];
+        for (int variable = 1; variable <= numVariables; variable++) {
+            values[variable] = random.nextBoolean();
+        }
+        this.flippedSinceBest = new IntVec();
+        this.trueCounts = new int[crefs.length];
+        this.trueXor = new int[crefs.length];
+        this.breaks = new int[numVariables + 1];
+        this.unsatisfied = new IntVec();
+        this.positions = new int[crefs.length];
+    }
+
+    public void setValue(int variable, boolean value) {
+        values[variable] = value;
+    }
+
+    // Searches from the current assignment for at most maxFlips flips and
+    // returns true if it satisfies every clause. The best assignment found is
+    // kept in bestValue(), a later call continues from the current one
+    public boolean run(long maxFlips) {
+        initialize();
+        if (emptyClause) {
+            return false;
+        }
+        for (long flip = 0; flip < maxFlips && !unsatisfied.isEmpty(); flip++) {
+            int clause = unsatisfied.get(random.nextInt(unsatisfied.size()));
+            flip(probSat ? pickProbSat(clause) : pickWalkSat(clause));
+            flips++;
+            if (unsatisfied.size() < bestUnsatisfied) {
+                saveBest();
+            } else if (flippedSinceBest.size() > 2 * values.length) {
+                compactFlipped();
+            }
+        }
+        return unsatisfied.isEmpty();
+    }
+
+    // value of a variable in the assignment with the fewest unsatisfied clauses
+    public boolean bestValue(int variable) {
+        return bestValues[variable];
+    }
+
+    // unsatisfied clauses under the best assignment
+    public int getBestUnsatisfied() {
+        return bestUnsatisfied;
+    }
+
+    // number of clauses searched
+    public int size() {
+        return crefs.length;
+    }
+
+    // flips over all calls of run()
+    public long getFlips() {
+        return flips;
+    }
+
+    // Computes the counters, break counts and unsatisfied list of the current assignment
+    private void initialize() {
+        Arrays.fill(breaks, 0);
+        unsatisfied.clear();
+        for (int c = 0; c < crefs.length; c++) {
+            int cref = crefs[c];
+            int count = 0;
+            int xor = 0;
+            for (int k = 0; k < arena.size(cref); k++) {
+                int literal = arena.literal(cref, k);
+                if (isTrue(literal)) {
+                    count++;
+                    xor ^= Literal.variable(literal);
+                }
+            }
+            trueCounts[c] = count;
+            trueXor[c] = xor;
+            positions[c] = -1;
+            if (count == 0) {
+                addUnsatisfied(c);
+            } else if (count == 1) {
+                breaks[xor]++;
+            }
+        }
+        System.arraycopy(values, 0, bestValues, 0, values.length);
+        flippedSinceBest.clear();
+        bestUnsatisfied = unsatisfied.size();
+    }
+
+    // Makes the current assignment the best one. Only the variables flipped
+    // since the last best assignment differ, so this costs as much as those flips
+    private void saveBest() {
+        for (int i = 0; i < flippedSinceBest.size(); i++) {
+            int variable = flippedSinceBest.get(i);
+            bestValues[variable] = values[variable];
+        }
+        flippedSinceBest.clear();
+        bestUnsatisfied = unsatisfied.size();
+    }
+
+    // Keeps each variable that differs from the best assignment once in
+    // flippedSinceBest and drops the others, so a long search without
+    // improvement does not grow the list without bound
+    private void compactFlipped() {
+        int kept = 0;
+        for (int i = 0; i < flippedSinceBest.size(); i++) {
+            int variable = flippedSinceBest.get(i);
+            if (values[variable] != bestValues[variable]) {
+                bestValues[variable] = values[variable]; // marks it as kept, undone below
+                flippedSinceBest.set(kept++, variable);
+            }
+        }
+        flippedSinceBest.shrink(kept);
+        for (int i = 0; i < kept; i++) {
+            int variable = flippedSinceBest.get(i);
+            bestValues[variable] = !values[variable];
+        }
+    }
+
+    private boolean isTrue(int literal) {
+        return values[Literal.variable(literal)] != Literal.isNegated(literal);
+    }
+
+    private void flip(int variable) {
+        values[variable] = !values[variable];
+        flippedSinceBest.add(variable);
+        int madeTrue = Literal.of(variable, !values[variable]);
+        IntVec list = occurrences[madeTrue];
+        for (int i = 0; i < list.size(); i++) {
+            int c = list.get(i);
+            int count = ++trueCounts[c];
+            if (count == 1) {
+                removeUnsatisfied(c);
+                breaks[variable]++;
+            } else if (count == 2) {
+                breaks[trueXor[c]]--; // the only true literal before is not alone anymore
+            }
+            trueXor[c] ^= variable;
+        }
+        list = occurrences[Literal.negate(madeTrue)];
+        for (int i = 0; i < list.size(); i++) {
+            int c = list.get(i);
+            int count = --trueCounts[c];
+            trueXor[c] ^= variable;
+            if (count == 0) {
+                addUnsatisfied(c);
+                breaks[variable]--;
+            } else if (count == 1) {
+                breaks[trueXor[c]]++; // the last true literal
+            }
+        }
+    }
+
+    private int pickProbSat(int clause) {
+        int cref = crefs[clause];
+        int size = arena.size(cref);
+        if (candidateWeights.length < size) {
+            candidateWeights = new double[2 * size];
+        }
+        double sum = 0;
+        for (int k = 0; k < size; k++) {
+            int variable = Literal.variable(arena.literal(cref, k));
+            sum += breakWeights[Math.min(breaks[variable], MAX_BREAK)];
+            candidateWeights[k] = sum;
+        }
+        double threshold = random.nextDouble() * sum;
+        for (int k = 0; k < size - 1; k++) {
+            if (candidateWeights[k] > threshold) {
+                return Literal.variable(arena.literal(cref, k));
+            }
+        }
+        return Literal.variable(arena.literal(cref, size - 1));
+    }
+
+    private int pickWalkSat(int clause) {
+        int cref = crefs[clause];
+        int size = arena.size(cref);
+        int best = 0;
+        int bestBreak = Integer.MAX_VALUE;
+        int ties = 0;
+        for (int k = 0; k < size; k++) {
+            int variable = Literal.variable(arena.literal(cref, k));
+            int b = breaks[variable];
+            if (b < bestBreak) {
+                best = variable;
+                bestBreak = b;
+                ties = 1;
+            } else if (b == bestBreak && random.nextInt(++ties) == 0) {
+                best = variable;
+            }
+        }
+        if (bestBreak > 0 && random.nextDouble() < WALKSAT_NOISE) {
+            return Literal.variable(arena.literal(cref, random.nextInt(size)));
+        }
+        return best;
+    }
+
+    private void addUnsatisfied(int clause) {
+        positions[clause] = unsatisfied.size();
+        unsatisfied.add(clause);
+    }
+
+    // moves the last unsatisfied clause into the place of the removed one
+    private void removeUnsatisfied(int clause) {
+        int position = positions[clause];
+        int last = unsatisfied.pop();
+        if (last != clause) {
+            unsatisfied.set(position, last);
+            positions[last] = position;
+        }
+        positions[clause] = -1;
+    }
+}
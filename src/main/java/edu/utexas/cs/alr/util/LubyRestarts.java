@@ -0,0 +1,52 @@
+package edu.utexas.cs.alr.util;
+
+// Restarts after a number of conflicts following the Luby sequence
+// 1 1 2 1 1 2 4 1 1 2 1 1 2 4 8 ... multiplied by a fixed unit.
+public class LubyRestarts implements RestartPolicy {
+    private final int unit;
+    private int restarts; // restarts done so far, index into the Luby sequence
+    private long conflictsSinceRestart;
+    private long limit;
+
+    public LubyRestarts(int unit) {
+        this.unit = unit;
+        this.restarts = 0;
+        this.conflictsSinceRestart = 0;
+        this.limit = unit * luby(0);
+    }
+
+    @Override
+    public void onConflict(int lbd) {
+        conflictsSinceRestart++;
+    }
+
+    @Override
+    public boolean shouldRestart() {
+        return conflictsSinceRestart >= limit;
+    }
+
+    @Override
+    public void onRestart() {
+        restarts++;
+        conflictsSinceRestart = 0;
+        limit = unit * luby(restarts);
+    }
+
+    // element i of the Luby sequence, counting from 0. The sequence is made of
+    // complete subsequences of length 2^k - 1, find the one containing i and
+    // recurse into it until i is its last element
+    static long luby(int i) {
+        int size = 1;
+        int seq = 0;
+        while (size < i + 1) {
+            seq++;
+            size = 2 * size + 1;
+        }
+        while (size - 1 != i) {
+            size = (size - 1) >> 1;
+            seq--;
+            i = i % size;
+        }
+        return 1L << seq;
+    }
+}
@@ -0,0 +1,162 @@
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Evaluates a formula under up to 64 assignments at once. Bit i of a word is
+// the value in assignment i, so one bitwise operation per node evaluates every
+// assignment, and the formula is walked once no matter how many there are.
+//
+// The expression is flattened into an array of nodes in post order when the
+// evaluator is created. ExprFactory shares equal subexpressions, so the
+// expression is a DAG and shared nodes are flattened and evaluated once. The
+// walk uses an explicit stack, formulas nest far deeper than the call stack
+// allows.
+public class ModelEvaluator {
+    private static final int VAR = 0;
+    private static final int NEG = 1;
+    private static final int AND = 2;
+    private static final int OR = 3;
+    private static final int IMPL = 4;
+    private static final int EQUIV = 5;
+
+    // node i computes kinds[i] of nodes left[i] and right[i], which come before
+    // it, a VAR node reads variable left[i]. The last node is the formula
+    private final int[] kinds;
+    private final int[] left;
+    private final int[] right;
+    private final int numVariables;
+
+    public ModelEvaluator(Expr formula) {
+        Map<Expr, Integer> index = new IdentityHashMap<>();
+        IntVec kindList = new IntVec();
+        IntVec leftList = new IntVec();
+        IntVec rightList = new IntVec();
+        int maxVariable = 0;
+
+        // a node is popped once to push its children and again, after them, to be flattened
+        Deque<Expr> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        pending.push(formula);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            Expr e = pending.pop();
+            boolean ready = expanded.pop();
+            if (index.containsKey(e)) {
+                continue;
+            }
+            Expr first = null;
+            Expr second = null;
+            int kind;
+            switch (e.getKind()) {
+                case VAR:
+                    kind = VAR;
+                    break;
+                case NEG:
+                    kind = NEG;
+                    first = ((NegExpr) e).getExpr();
+                    break;
+                case AND:
+                    kind = AND;
+                    first = ((AndExpr) e).getLeft();
+                    second = ((AndExpr) e).getRight();
+                    break;
+                case OR:
+                    kind = OR;
+                    first = ((OrExpr) e).getLeft();
+                    second = ((OrExpr) e).getRight();
+                    break;
+                case IMPL:
+                    kind = IMPL;
+                    first = ((ImplExpr) e).getAntecedent();
+                    second = ((ImplExpr) e).getConsequent();
+                    break;
+                default:
+                    kind = EQUIV;
+                    first = ((EquivExpr) e).getLeft();
+                    second = ((EquivExpr) e).getRight();
+                    break;
+            }
+            if (!ready && kind != VAR) {
+                pending.push(e);
+                expanded.push(true);
+                if (second != null) {
+                    pending.push(second);
+                    expanded.push(false);
+                }
+                pending.push(first);
+                expanded.push(false);
+                continue;
+            }
+            if (kind == VAR) {
+                long id = ((VarExpr) e).getId();
+                if (id > Integer.MAX_VALUE - 1) {
+                    throw new IllegalArgumentException("Variable x" + id + " is out of range");
+                }
+                maxVariable = Math.max(maxVariable, (int) id);
+                leftList.add((int) id);
+                rightList.add(0);
+            } else {
+                leftList.add(index.get(first));
+                rightList.add(second == null ? 0 : index.get(second));
+            }
+            kindList.add(kind);
+            index.put(e, kindList.size() - 1);
+        }
+        this.kinds = kindList.toArray();
+        this.left = leftList.toArray();
+        this.right = rightList.toArray();
+        this.numVariables = maxVariable;
+    }
+
+    // highest variable id in the formula
+    public int getNumVariables() {
+        return numVariables;
+    }
+
+    // Evaluates the formula under 64 assignments, bit i of values[v] is the value
+    // of variable v in assignment i. Variables past the end of values are false.
+    // Returns the word whose bit i is set if assignment i satisfies the formula
+    public long evaluate(long[] values) {
+        long[] results = new long[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            long a = kinds[i] == VAR ? (left[i] < values.length ? values[left[i]] : 0) : results[left[i]];
+            long b = results[right[i]];
+            switch (kinds[i]) {
+                case VAR:
+                    results[i] = a;
+                    break;
+                case NEG:
+                    results[i] = ~a;
+                    break;
+                case AND:
+                    results[i] = a & b;
+                    break;
+                case OR:
+                    results[i] = a | b;
+                    break;
+                case IMPL:
+                    results[i] = ~a | b;
+                    break;
+                default:
+                    results[i] = ~(a ^ b);
+                    break;
+            }
+        }
+        return results[kinds.length - 1];
+    }
+
+    // true if the assignment indexed by variable id satisfies the formula,
+    // variables past the end of model are false
+    public boolean satisfies(boolean[] model) {
+        long[] values = new long[Math.min(model.length, numVariables + 1)];
+        for (int variable = 1; variable < values.length; variable++) {
+            values[variable] = model[variable] ? 1 : 0;
+        }
+        return (evaluate(values) & 1) != 0;
+    }
+}
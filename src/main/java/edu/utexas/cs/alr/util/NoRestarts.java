@@ -0,0 +1,18 @@
+package edu.utexas.cs.alr.util;
+
+// Never restarts, the search runs on from its first decision
+public class NoRestarts implements RestartPolicy {
+
+    @Override
+    public void onConflict(int lbd) {
+    }
+
+    @Override
+    public boolean shouldRestart() {
+        return false;
+    }
+
+    @Override
+    public void onRestart() {
+    }
+}
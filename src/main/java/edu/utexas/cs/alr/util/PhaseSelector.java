@@ -0,0 +1,141 @@
+package edu.utexas.cs.alr.util;
+
+// Chooses the value a decision gives its variable. Phases are stored per
+// variable as "decide the negated literal" flags.
+//
+// Phase saving: when a variable is unassigned on backtrack its value is
+// remembered and the next decision on it picks the same value again, so the
+// search does not throw away satisfied parts of the formula.
+//
+// Target phases: the assignment of the longest conflict free trail seen since
+// the last restart or rephase. Deciding towards it keeps the solver close to
+// the most promising partial assignment. Variables outside of that trail have
+// no target phase and use their saved phase. Best phases are the same over the
+// whole run.
+//
+// Rephasing: every so often the saved phases are overwritten following a fixed
+// cycle, alternating the best phases with the original and the inverted
+// original phases, to move the search out of a region it is stuck in.
+public class PhaseSelector {
+    private static final int REPHASE_INTERVAL = 1000; // conflicts, the k-th rephase happens after k times this
+
+    // rephasing cycle
+    private static final int BEST = 0;
+    private static final int ORIGINAL = 1;
+    private static final int INVERTED = 2;
+    private static final int[] SCHEDULE = { BEST, ORIGINAL, BEST, INVERTED };
+
+    private final boolean useTarget;
+    private final boolean rephase;
+
+    private final boolean[] initial; // polarity before search, e.g. the more frequent one
+    private final boolean[] saved;
+    private final boolean[] target;
+    private final int[] targetStamps; // a variable has a target phase if its stamp is targetStamp
+    private int targetStamp;
+    private final boolean[] best;
+    private int targetAssigned; // length of the trail the target phases come from
+    private int bestAssigned;
+
+    private int rephases;
+    private long nextRephase;
+
+    public PhaseSelector(int numVariables, boolean useTarget, boolean rephase) {
+        this.useTarget = useTarget;
+        this.rephase = rephase;
+        this.initial = new boolean[numVariables + 1];
+        this.saved = new boolean[numVariables + 1];
+        this.target = new boolean[numVariables + 1];
+        this.targetStamps = new int[numVariables + 1];
+        this.targetStamp = 1;
+        this.best = new boolean[numVariables + 1];
+        this.targetAssigned = 0;
+        this.bestAssigned = 0;
+        this.rephases = 0;
+        this.nextRephase = REPHASE_INTERVAL;
+    }
+
+    public void setInitial(int variable, boolean negated) {
+        initial[variable] = negated;
+        saved[variable] = negated;
+        best[variable] = negated;
+    }
+
+    // Overwrites the saved phase of a variable, e.g. with a value found outside of
+    // CDCL search. The variable loses its target phase, so decisions follow the
+    // new value whether target phases are on or not
+    public void setSaved(int variable, boolean negated) {
+        saved[variable] = negated;
+        targetStamps[variable] = 0;
+        targetAssigned = 0;
+    }
+
+    // Remembers the value of a variable that is being unassigned
+    public void save(int literal) {
+        saved[Literal.variable(literal)] = Literal.isNegated(literal);
+    }
+
+    // The literal a decision on variable assigns
+    public int decide(int variable) {
+        boolean negated = useTarget && targetStamps[variable] == targetStamp ? target[variable] : saved[variable];
+        return Literal.of(variable, negated);
+    }
+
+    // Called with the conflict free prefix of the trail before backtracking.
+    // A prefix longer than any before replaces the target or best phases
+    public void updateTargetAndBest(int[] trail, int assigned) {
+        if (assigned > targetAssigned) {
+            clearTarget();
+            copyTrail(trail, assigned, target);
+            for (int i = 0; i < assigned; i++) {
+                targetStamps[Literal.variable(trail[i])] = targetStamp;
+            }
+            targetAssigned = assigned;
+        }
+        if (assigned > bestAssigned) {
+            copyTrail(trail, assigned, best);
+            bestAssigned = assigned;
+        }
+    }
+
+    // A restart starts a new target, the old one only guided the previous run
+    public void onRestart() {
+        clearTarget();
+    }
+
+    public boolean shouldRephase(long conflicts) {
+        return rephase && conflicts >= nextRephase;
+    }
+
+    // Resets the saved phases to the next phases of the schedule and drops the target
+    public void rephase(long conflicts) {
+        int kind = SCHEDULE[rephases % SCHEDULE.length];
+        for (int variable = 1; variable < saved.length; variable++) {
+            if (kind == BEST) {
+                saved[variable] = best[variable];
+            } else if (kind == ORIGINAL) {
+                saved[variable] = initial[variable];
+            } else {
+                saved[variable] = !initial[variable];
+            }
+        }
+        if (kind == BEST) {
+            bestAssigned = 0;
+        }
+        clearTarget();
+        rephases++;
+        nextRephase = conflicts + (long) (rephases + 1) * REPHASE_INTERVAL;
+    }
+
+    // Every variable loses its target phase at once by moving to a new stamp
+    private void clearTarget() {
+        targetStamp++;
+        targetAssigned = 0;
+    }
+
+    private static void copyTrail(int[] trail, int assigned, boolean[] phases) {
+        for (int i = 0; i < assigned; i++) {
+            phases[Literal.variable(trail[i])] = Literal.isNegated(trail[i]);
+        }
+    }
+}
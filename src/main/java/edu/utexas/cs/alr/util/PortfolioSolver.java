@@ -0,0 +1,83 @@
+package edu.utexas.cs.alr.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs several differently configured CDCL solvers on the same formula in
+// parallel, one per thread, and takes the answer of whichever finishes first.
+// The others are then interrupted and stop at their next decision.
+//
+// The formula is converted and preprocessed once by the caller. Its arena is
+// then frozen and shared by all workers, which only read it. Each worker
+// solves on an arena layered on top of it, which holds the positions of the
+// watched literals of the shared clauses and the clauses the worker learns.
+//
+// SolverOptions.forWorker() decides how the workers differ: restart policy,
+// target phases, initial polarity, VSIDS decay and the seed of the initial
+// branching order. With sharing on, the workers also exchange their short
+// learned clauses through a ClauseExchange.
+public class PortfolioSolver {
+    private static final int EXCHANGE_CAPACITY = 1 << 14; // shared clauses kept in the ring buffer
+
+    private final CDCLSolver[] workers;
+    private CDCLSolver winner;
+    private int winnerIndex;
+
+    public PortfolioSolver(ClauseArena arena, SolverOptions options) {
+        this.workers = new CDCLSolver[options.threads];
+        arena.freeze();
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new CDCLSolver(new ClauseArena(arena), options.forWorker(i));
+        }
+        if (options.share) {
+            ClauseExchange exchange = new ClauseExchange(EXCHANGE_CAPACITY);
+            for (int i = 0; i < workers.length; i++) {
+                workers[i].shareClauses(exchange.connect(i, workers[i].getStats()));
+            }
+        }
+    }
+
+    // Solves the formula on all workers, returns the result of the first one to finish
+    public boolean solve() {
+        ExecutorService executor = Executors.newFixedThreadPool(workers.length);
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        // a worker reports its index plus one, negated for UNSAT
+        for (int i = 0; i < workers.length; i++) {
+            final int index = i;
+            completion.submit(() -> workers[index].solve() ? index + 1 : -(index + 1));
+        }
+        try {
+            int result = completion.take().get();
+            winnerIndex = Math.abs(result) - 1;
+            winner = workers[winnerIndex];
+            return result > 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the portfolio", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Portfolio worker failed", e.getCause());
+        } finally {
+            for (CDCLSolver worker : workers) {
+                worker.interrupt();
+            }
+            executor.shutdown();
+        }
+    }
+
+    // value of a variable in the model found by the winning worker
+    public boolean modelValue(int variable) {
+        return winner.modelValue(variable);
+    }
+
+    // statistics of the winning worker
+    public SolverStats getStats() {
+        return winner.getStats();
+    }
+
+    // number of the worker whose answer was taken, its settings are SolverOptions.forWorker(index)
+    public int getWinnerIndex() {
+        return winnerIndex;
+    }
+}
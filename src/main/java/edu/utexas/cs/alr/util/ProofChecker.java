@@ -0,0 +1,792 @@
+package edu.utexas.cs.alr.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Checks a proof written by DratProof against the formula it refers to, the
+// clauses of an arena in arena order. The proof file is read through memory
+// mappings, in binary or text format.
+//
+// DRAT proofs are checked backwards. A forward pass only matches deletions to
+// the clauses they delete and stops at the first empty clause. From there the
+// proof is undone step by step: a deletion brings its clause back, an addition
+// takes its lemma out again and, if the lemma is marked, checks it. A lemma is
+// checked by propagating its negation together with the unit clauses. When
+// that ends in a conflict, the clauses the conflict depends on are marked, so
+// only lemmas that the empty clause needs get checked. Propagation uses the
+// marked clauses first and others only when the marked ones are stuck, which
+// keeps the marked set small. A lemma without a conflict can still be a RAT
+// clause on its first literal p: every resolvent with a clause containing !p
+// has to give a conflict then. Every check starts from an empty assignment, so
+// the watches need no repair when clauses come back.
+//
+// LRAT proofs carry their hints, each lemma is checked by going through its
+// hint clauses once. A lemma only depends on clauses added before it and not
+// deleted yet, so the lemmas are split into ranges that threads check in
+// parallel.
+public class ProofChecker {
+    private static final int MAP_WINDOW = 1 << 30; // bytes of the proof file mapped at a time
+
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNASSIGNED = 0;
+
+    private final int numVariables;
+    private final int formulaClauses;
+
+    // clauses by id starting at 1, the literals of clause id are
+    // literals[starts[id]] up to literals[starts[id + 1]]
+    private IntVec literals;
+    private IntVec starts;
+
+    // proof steps in file order: id for the addition of clause id, -id for its deletion
+    private IntVec steps;
+    private IntVec hints; // LRAT hints, those of step i are hints[hintStarts[i]] up to hintStarts[i + 1]
+    private IntVec hintStarts;
+
+    private String error; // why the last check failed
+    private long checkedLemmas;
+    private long ratLemmas;
+
+    // The formula is copied, arena can change afterwards
+    public ProofChecker(ClauseArena arena, int numVariables) {
+        this.numVariables = numVariables;
+        this.literals = new IntVec();
+        this.starts = new IntVec();
+        starts.add(0); // id 0 is not used
+        starts.add(0);
+        int count = 0;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (arena.isDeleted(cref)) {
+                continue;
+            }
+            for (int k = 0; k < arena.size(cref); k++) {
+                literals.add(arena.literal(cref, k));
+            }
+            starts.add(literals.size());
+            count++;
+        }
+        this.formulaClauses = count;
+    }
+
+    // reason the last check returned false
+    public String getError() {
+        return error;
+    }
+
+    // lemmas checked by the last check, for DRAT only the ones the empty clause needs
+    public long getCheckedLemmas() {
+        return checkedLemmas;
+    }
+
+    public long getRatLemmas() {
+        return ratLemmas;
+    }
+
+    // Checks a DRAT proof, returns true if it derives the empty clause
+    public boolean checkDrat(String path, boolean binary) throws IOException {
+        reset();
+        if (!readProof(path, binary, false)) {
+            return false;
+        }
+        return new DratPass().run();
+    }
+
+    // Checks an LRAT proof on the given number of threads, returns true if it
+    // derives the empty clause and every lemma up to it checks
+    public boolean checkLrat(String path, boolean binary, int threads) throws IOException {
+        reset();
+        if (!readProof(path, binary, true)) {
+            return false;
+        }
+        return checkLratSteps(threads);
+    }
+
+    private void reset() {
+        literals.shrink(starts.get(formulaClauses + 1));
+        starts.shrink(formulaClauses + 2);
+        steps = new IntVec();
+        hints = new IntVec();
+        hintStarts = new IntVec();
+        error = null;
+        checkedLemmas = 0;
+        ratLemmas = 0;
+    }
+
+    private int size(int id) {
+        return starts.get(id + 1) - starts.get(id);
+    }
+
+    private boolean fail(String message) {
+        error = message;
+        return false;
+    }
+
+    // ---- reading ----
+
+    // Reads the proof into steps. DRAT deletions are matched to the newest live
+    // clause with the same literals, deletions of clauses that do not exist are
+    // skipped. LRAT lemmas must get the next free id and their hints are kept.
+    // Stops after the first empty clause
+    private boolean readProof(String path, boolean binary, boolean lrat) throws IOException {
+        ProofReader reader = new ProofReader(path, binary);
+        HashMap<Long, IntVec> live = new HashMap<>(); // DRAT only: ids by literal set hash
+        if (!lrat) {
+            for (int id = 1; id <= formulaClauses; id++) {
+                live.computeIfAbsent(hash(id), key -> new IntVec()).add(id);
+            }
+        }
+        IntVec clause = new IntVec();
+        int[] marks = new int[2 * (numVariables + 1)];
+        int stamp = 0;
+        while (true) {
+            int kind = reader.nextStep();
+            if (kind < 0) {
+                return fail("The proof has no empty clause");
+            }
+            int stated = 0;
+            if (lrat) {
+                // a text step starts with an id, a binary deletion does not
+                if (kind != 'd') {
+                    stated = reader.nextNumber();
+                    if (reader.deletionAfterId()) {
+                        kind = 'd';
+                    }
+                }
+                if (kind == 'd') {
+                    // LRAT deletions name ids directly
+                    for (int id = reader.nextNumber(); id != 0; id = reader.nextNumber()) {
+                        if (id < 0 || id >= starts.size() - 1) {
+                            return fail("Deletion of unknown clause " + id);
+                        }
+                        steps.add(-id);
+                        hintStarts.add(hints.size());
+                    }
+                    continue;
+                }
+            }
+            clause.clear();
+            for (int literal = reader.nextLiteral(); literal != 0; literal = reader.nextLiteral()) {
+                if (Literal.variable(literal) > numVariables) {
+                    return fail("Variable " + Literal.variable(literal) + " is not in the formula");
+                }
+                clause.add(literal);
+            }
+            if (kind == 'd') {
+                int id = findLive(live, clause, marks, ++stamp);
+                if (id != 0) {
+                    steps.add(-id);
+                    hintStarts.add(hints.size());
+                }
+                continue;
+            }
+            int id = starts.size() - 1;
+            if (lrat && stated != id) {
+                return fail("Lemma has id " + stated + " where " + id + " was expected");
+            }
+            for (int k = 0; k < clause.size(); k++) {
+                literals.add(clause.get(k));
+            }
+            starts.add(literals.size());
+            steps.add(id);
+            hintStarts.add(hints.size());
+            if (lrat) {
+                for (int hint = reader.nextNumber(); hint != 0; hint = reader.nextNumber()) {
+                    hints.add(hint);
+                }
+            } else {
+                live.computeIfAbsent(hash(id), key -> new IntVec()).add(id);
+            }
+            if (clause.isEmpty()) {
+                hintStarts.add(hints.size());
+                return true;
+            }
+        }
+    }
+
+    // the newest live clause with exactly the literals of clause, removed from live, or 0
+    private int findLive(HashMap<Long, IntVec> live, IntVec clause, int[] marks, int stamp) {
+        for (int k = 0; k < clause.size(); k++) {
+            marks[clause.get(k)] = stamp;
+        }
+        IntVec candidates = live.get(hash(clause.rawData(), 0, clause.size()));
+        if (candidates == null) {
+            return 0;
+        }
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            int id = candidates.get(i);
+            if (size(id) != clause.size()) {
+                continue;
+            }
+            boolean same = true;
+            for (int j = starts.get(id); j < starts.get(id + 1) && same; j++) {
+                same = marks[literals.get(j)] == stamp;
+            }
+            if (same) {
+                candidates.set(i, candidates.last());
+                candidates.pop();
+                return id;
+            }
+        }
+        return 0;
+    }
+
+    private long hash(int id) {
+        return hash(literals.rawData(), starts.get(id), size(id));
+    }
+
+    // hash of a literal set, independent of the literal order
+    private static long hash(int[] data, int from, int size) {
+        long sum = 0;
+        long product = 1;
+        long xor = 0;
+        for (int i = from; i < from + size; i++) {
+            long literal = data[i];
+            sum += literal * 0x9E3779B97F4A7C15L;
+            product *= literal | 1;
+            xor ^= literal << (literal & 31);
+        }
+        return sum ^ (product * 31) ^ (xor * 0x100000001b3L) ^ size;
+    }
+
+    // Reads steps, literals and numbers from the memory mapped proof file. The
+    // file is mapped in windows of MAP_WINDOW bytes, so it can exceed 2 GB
+    private static final class ProofReader {
+        private final FileChannel channel;
+        private final boolean binary;
+        private final long length;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        ProofReader(String path, boolean binary) throws IOException {
+            this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            this.binary = binary;
+            this.length = channel.size();
+            this.windowStart = 0;
+            map();
+        }
+
+        private void map() throws IOException {
+            long size = Math.min(MAP_WINDOW, length - windowStart);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+            if (windowStart + size >= length) {
+                channel.close(); // the mapping stays valid
+            }
+        }
+
+        // next byte, or -1 at the end of the file
+        private int read() throws IOException {
+            if (!window.hasRemaining()) {
+                if (windowStart + window.capacity() >= length) {
+                    return -1;
+                }
+                windowStart += window.capacity();
+                map();
+            }
+            return window.get() & 0xFF;
+        }
+
+        // Starts the next step and returns 'a' or 'd', or -1 at the end. In text
+        // an addition has no marker, the 'd' of a deletion is consumed here
+        int nextStep() throws IOException {
+            if (binary) {
+                int kind = read();
+                if (kind != -1 && kind != 'a' && kind != 'd') {
+                    throw new IOException("Unknown proof step " + kind);
+                }
+                return kind;
+            }
+            int c = skipSpace();
+            if (c == -1) {
+                return -1;
+            }
+            if (c == 'd') {
+                read();
+                return 'd';
+            }
+            return 'a';
+        }
+
+        // In text an LRAT deletion starts with an id and then 'd', which is
+        // consumed here. Returns true if it was there
+        boolean deletionAfterId() throws IOException {
+            if (binary || skipSpace() != 'd') {
+                return false;
+            }
+            read();
+            return true;
+        }
+
+        // next literal code, 0 at the end of a clause
+        int nextLiteral() throws IOException {
+            if (binary) {
+                return (int) varint();
+            }
+            int number = textNumber();
+            return number == 0 ? 0 : Literal.of(Math.abs(number), number < 0);
+        }
+
+        // next id or hint, which may be negative, 0 at the end of a list
+        int nextNumber() throws IOException {
+            if (binary) {
+                long code = varint();
+                return (int) ((code & 1) == 0 ? code >>> 1 : -(code >>> 1));
+            }
+            return textNumber();
+        }
+
+        private long varint() throws IOException {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = read();
+                if (b == -1) {
+                    throw new IOException("Proof ends inside a step");
+                }
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        // skips blanks and comment lines, returns the next character without consuming it
+        private int skipSpace() throws IOException {
+            while (true) {
+                if (!window.hasRemaining() && windowStart + window.capacity() < length) {
+                    windowStart += window.capacity();
+                    map();
+                }
+                if (!window.hasRemaining()) {
+                    return -1;
+                }
+                int c = window.get(window.position()) & 0xFF;
+                if (c == 'c') {
+                    while (c != '\n' && c != -1) {
+                        c = read();
+                    }
+                } else if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    read();
+                } else {
+                    return c;
+                }
+            }
+        }
+
+        private int textNumber() throws IOException {
+            int c = skipSpace();
+            boolean negative = c == '-';
+            if (negative) {
+                read();
+            }
+            long value = 0;
+            int digits = 0;
+            while (true) {
+                c = skipDigitCheck();
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                read();
+                value = value * 10 + (c - '0');
+                digits++;
+            }
+            if (digits == 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("Malformed number in proof");
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        // the next character without consuming it, -1 at the end
+        private int skipDigitCheck() throws IOException {
+            if (!window.hasRemaining()) {
+                if (windowStart + window.capacity() >= length) {
+                    return -1;
+                }
+                windowStart += window.capacity();
+                map();
+            }
+            return window.get(window.position()) & 0xFF;
+        }
+    }
+
+    // ---- LRAT ----
+
+    private boolean checkLratSteps(int threads) {
+        int ids = starts.size() - 1;
+        int[] addedAt = new int[ids];
+        int[] deletedAt = new int[ids];
+        Arrays.fill(deletedAt, Integer.MAX_VALUE);
+        IntVec lemmas = new IntVec(); // step positions of the additions
+        for (int i = 0; i < steps.size(); i++) {
+            int step = steps.get(i);
+            if (step > 0) {
+                addedAt[step] = i;
+                lemmas.add(i);
+            } else if (deletedAt[-step] == Integer.MAX_VALUE) {
+                deletedAt[-step] = i;
+            }
+        }
+        for (int id = 1; id <= formulaClauses; id++) {
+            addedAt[id] = -1;
+        }
+        checkedLemmas = lemmas.size();
+
+        int parts = Math.max(1, Math.min(threads, lemmas.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(parts);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int p = 0; p < parts; p++) {
+                int from = (int) ((long) lemmas.size() * p / parts);
+                int to = (int) ((long) lemmas.size() * (p + 1) / parts);
+                results.add(executor.submit(() -> checkLratRange(lemmas, from, to, addedAt, deletedAt)));
+            }
+            for (Future<String> result : results) {
+                String message = result.get();
+                if (message != null) {
+                    return fail(message);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the proof", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Proof check failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Checks the lemmas at lemmas[from] up to lemmas[to]. Returns null if they
+    // all check, otherwise why the first one that does not fails
+    private String checkLratRange(IntVec lemmas, int from, int to, int[] addedAt, int[] deletedAt) {
+        byte[] values = new byte[numVariables + 1];
+        IntVec assigned = new IntVec();
+        for (int l = from; l < to; l++) {
+            int step = lemmas.get(l);
+            int id = steps.get(step);
+            String message = checkLratLemma(id, step, values, assigned, addedAt, deletedAt);
+            for (int i = 0; i < assigned.size(); i++) {
+                values[assigned.get(i)] = UNASSIGNED;
+            }
+            assigned.clear();
+            if (message != null) {
+                return "Lemma " + (id - formulaClauses) + ": " + message;
+            }
+        }
+        return null;
+    }
+
+    private String checkLratLemma(int id, int step, byte[] values, IntVec assigned, int[] addedAt, int[] deletedAt) {
+        for (int j = starts.get(id); j < starts.get(id + 1); j++) {
+            int literal = literals.get(j);
+            byte value = value(values, literal);
+            if (value == FALSE) {
+                return null; // the lemma contains a literal and its negation
+            }
+            if (value == UNASSIGNED) {
+                set(values, assigned, Literal.negate(literal));
+            }
+        }
+        for (int h = hintStarts.get(step); h < hintStarts.get(step + 1); h++) {
+            int hint = hints.get(h);
+            if (hint < 0) {
+                return "RAT hints are not supported";
+            }
+            if (hint >= addedAt.length || addedAt[hint] >= step || deletedAt[hint] < step) {
+                return "hint " + hint + " is not a live clause";
+            }
+            int unit = 0;
+            int unassigned = 0;
+            for (int j = starts.get(hint); j < starts.get(hint + 1); j++) {
+                int literal = literals.get(j);
+                byte value = value(values, literal);
+                if (value == TRUE) {
+                    return "hint " + hint + " is satisfied";
+                }
+                if (value == UNASSIGNED && literal != unit) {
+                    unit = literal;
+                    unassigned++;
+                }
+            }
+            if (unassigned == 0) {
+                return null;
+            }
+            if (unassigned > 1) {
+                return "hint " + hint + " is not unit";
+            }
+            set(values, assigned, unit);
+        }
+        return "the hints do not end in a conflict";
+    }
+
+    private static byte value(byte[] values, int literal) {
+        byte value = values[Literal.variable(literal)];
+        return Literal.isNegated(literal) ? (byte) -value : value;
+    }
+
+    private static void set(byte[] values, IntVec assigned, int literal) {
+        values[Literal.variable(literal)] = Literal.isNegated(literal) ? FALSE : TRUE;
+        assigned.add(Literal.variable(literal));
+    }
+
+    // ---- DRAT ----
+
+    // State of the backward DRAT check
+    private final class DratPass {
+        private final int ids = starts.size() - 1;
+        private final boolean[] active = new boolean[ids]; // clauses live at the current step
+        private final boolean[] core = new boolean[ids]; // clauses some checked lemma depends on
+        private final IntVec[] watches = new IntVec[2 * (numVariables + 1)]; // clause ids per watched literal
+        private final IntVec units = new IntVec(); // ids of the unit clauses
+        private final int[] watched = new int[2 * ids]; // the two watched literals of each clause
+
+        private final byte[] values = new byte[numVariables + 1];
+        private final int[] reasons = new int[numVariables + 1]; // clause id that implied the variable, 0 if none
+        private final boolean[] seen = new boolean[numVariables + 1];
+        private final IntVec trail = new IntVec();
+
+        boolean run() {
+            for (int code = 0; code < watches.length; code++) {
+                watches[code] = new IntVec();
+            }
+            for (int id = 1; id < ids; id++) {
+                int size = size(id);
+                if (size == 1) {
+                    units.add(id);
+                } else if (size >= 2) {
+                    watched[2 * id] = literals.get(starts.get(id));
+                    watched[2 * id + 1] = literals.get(starts.get(id) + 1);
+                    watches[watched[2 * id]].add(id);
+                    watches[watched[2 * id + 1]].add(id);
+                }
+            }
+            for (int id = 1; id <= formulaClauses; id++) {
+                active[id] = true;
+            }
+            for (int i = 0; i < steps.size(); i++) {
+                int step = steps.get(i);
+                active[Math.abs(step)] = step > 0;
+            }
+
+            for (int i = steps.size() - 1; i >= 0; i--) {
+                int step = steps.get(i);
+                if (step < 0) {
+                    active[-step] = true;
+                    continue;
+                }
+                active[step] = false;
+                if (i == steps.size() - 1) {
+                    core[step] = true; // the empty clause
+                }
+                if (!core[step]) {
+                    continue;
+                }
+                checkedLemmas++;
+                if (!checkLemma(step)) {
+                    return fail("Lemma " + (step - formulaClauses) + " of the proof is neither RUP nor RAT");
+                }
+            }
+            return true;
+        }
+
+        // RUP check of the lemma, then RAT on its first literal
+        private boolean checkLemma(int id) {
+            if (propagatesToConflict(id, 0, 0)) {
+                return true;
+            }
+            if (size(id) == 0) {
+                return false;
+            }
+            ratLemmas++;
+            int pivot = literals.get(starts.get(id));
+            int negated = Literal.negate(pivot);
+            for (int other = 1; other < ids; other++) {
+                if (!active[other] || !contains(other, negated)) {
+                    continue;
+                }
+                if (!propagatesToConflict(id, other, negated)) {
+                    return false;
+                }
+                core[other] = true;
+            }
+            return true;
+        }
+
+        private boolean contains(int id, int literal) {
+            for (int j = starts.get(id); j < starts.get(id + 1); j++) {
+                if (literals.get(j) == literal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Assigns the units, the negation of the lemma and, for a RAT check, the
+        // negation of the literals of the other clause except skip, then
+        // propagates. On a conflict the clauses it depends on are marked core.
+        // The assignment is undone before returning
+        private boolean propagatesToConflict(int lemma, int other, int skip) {
+            int conflict = 0;
+            int conflictVariable = 0; // a variable that had to take both values
+            for (int u = 0; u < units.size() && conflict == 0 && conflictVariable == 0; u++) {
+                int id = units.get(u);
+                if (active[id]) {
+                    conflictVariable = assume(literals.get(starts.get(id)), id);
+                }
+            }
+            for (int pass = 0; pass < 2 && conflictVariable == 0; pass++) {
+                int id = pass == 0 ? lemma : other;
+                if (id == 0) {
+                    continue;
+                }
+                for (int j = starts.get(id); j < starts.get(id + 1) && conflictVariable == 0; j++) {
+                    if (literals.get(j) != skip) {
+                        conflictVariable = assume(Literal.negate(literals.get(j)), 0);
+                    }
+                }
+            }
+            if (conflictVariable == 0) {
+                conflict = propagate();
+            }
+            boolean found = conflict != 0 || conflictVariable != 0;
+            if (found) {
+                markCore(conflict, conflictVariable);
+            }
+            for (int i = 0; i < trail.size(); i++) {
+                int variable = Literal.variable(trail.get(i));
+                values[variable] = UNASSIGNED;
+                reasons[variable] = 0;
+            }
+            trail.clear();
+            return found;
+        }
+
+        // Makes literal true with the given reason. Returns its variable if the
+        // literal is already false, 0 otherwise. A literal that is already true
+        // stays as it is
+        private int assume(int literal, int reason) {
+            byte value = value(values, literal);
+            if (value == FALSE) {
+                // the clause forcing it false is marked together with this one
+                if (reason != 0) {
+                    core[reason] = true;
+                }
+                return Literal.variable(literal);
+            }
+            if (value == UNASSIGNED) {
+                values[Literal.variable(literal)] = Literal.isNegated(literal) ? FALSE : TRUE;
+                reasons[Literal.variable(literal)] = reason;
+                trail.add(literal);
+            }
+            return 0;
+        }
+
+        // Core-first propagation over the active clauses. coreHead and allHead are
+        // the trail positions up to which the watches of the false literals were
+        // visited for core and for other clauses. Other clauses are only visited
+        // when no core clause can propagate. Returns the id of a false clause, or 0
+        private int propagate() {
+            int coreHead = 0;
+            int allHead = 0;
+            while (true) {
+                if (coreHead < trail.size()) {
+                    int conflict = visit(Literal.negate(trail.get(coreHead++)), true);
+                    if (conflict != 0) {
+                        return conflict;
+                    }
+                } else if (allHead < trail.size()) {
+                    int conflict = visit(Literal.negate(trail.get(allHead++)), false);
+                    if (conflict != 0) {
+                        return conflict;
+                    }
+                } else {
+                    return 0;
+                }
+            }
+        }
+
+        // Visits the clauses of one class watching a literal that just became false
+        private int visit(int falseLiteral, boolean coreClauses) {
+            IntVec list = watches[falseLiteral];
+            int kept = 0;
+            int conflict = 0;
+            int i = 0;
+            for (; i < list.size(); i++) {
+                int id = list.get(i);
+                if (!active[id] || core[id] != coreClauses || conflict != 0) {
+                    list.set(kept++, id);
+                    continue;
+                }
+                int position = watched[2 * id] == falseLiteral ? 0 : 1;
+                int otherWatch = watched[2 * id + 1 - position];
+                if (value(values, otherWatch) == TRUE) {
+                    list.set(kept++, id);
+                    continue;
+                }
+                int replacement = 0;
+                for (int j = starts.get(id); j < starts.get(id + 1); j++) {
+                    int literal = literals.get(j);
+                    if (literal != falseLiteral && literal != otherWatch && value(values, literal) != FALSE) {
+                        replacement = literal;
+                        break;
+                    }
+                }
+                if (replacement != 0) {
+                    watched[2 * id + position] = replacement;
+                    watches[replacement].add(id);
+                    continue;
+                }
+                list.set(kept++, id);
+                if (value(values, otherWatch) == FALSE) {
+                    conflict = id;
+                } else {
+                    values[Literal.variable(otherWatch)] = Literal.isNegated(otherWatch) ? FALSE : TRUE;
+                    reasons[Literal.variable(otherWatch)] = id;
+                    trail.add(otherWatch);
+                }
+            }
+            list.shrink(kept);
+            return conflict;
+        }
+
+        // Marks the conflict clause, or the reasons of the variable that had to
+        // take both values, and every reason the conflict depends on
+        private void markCore(int conflict, int conflictVariable) {
+            if (conflict != 0) {
+                core[conflict] = true;
+                for (int j = starts.get(conflict); j < starts.get(conflict + 1); j++) {
+                    seen[Literal.variable(literals.get(j))] = true;
+                }
+            } else {
+                seen[conflictVariable] = true;
+            }
+            for (int i = trail.size() - 1; i >= 0; i--) {
+                int variable = Literal.variable(trail.get(i));
+                if (!seen[variable]) {
+                    continue;
+                }
+                seen[variable] = false;
+                int reason = reasons[variable];
+                if (reason == 0) {
+                    continue;
+                }
+                core[reason] = true;
+                for (int j = starts.get(reason); j < starts.get(reason + 1); j++) {
+                    seen[Literal.variable(literals.get(j))] = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package edu.utexas.cs.alr.util;
+
+// Decides when the solver restarts. A restart backtracks to level 0 but keeps
+// the learned clauses and the variable activities, so the search continues
+// from the same knowledge with a fresh sequence of decisions.
+public interface RestartPolicy {
+
+    // called after every conflict with the LBD of the clause learned from it
+    void onConflict(int lbd);
+
+    // asked before every decision
+    boolean shouldRestart();
+
+    // called when the solver has restarted
+    void onRestart();
+}
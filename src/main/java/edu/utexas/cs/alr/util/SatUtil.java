@@ -10,9 +10,12 @@ import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -21,11 +24,217 @@ import static edu.utexas.cs.alr.util.ExprWalker.dfsWalk;
 
 public class SatUtil {
     public static boolean checkSAT(Expr expr)
+    {
+        return checkSAT(expr, new SolverOptions());
+    }
+
+    public static boolean checkSAT(Expr expr, SolverOptions options)
+    {
+        return findModel(expr, options) != null;
+    }
+
+    //returns a satisfying assignment indexed by variable id, or null if the
+    //formula is unsatisfiable. With options.proofFile set, every clause that
+    //preprocessing and search derive or delete is logged to a DRAT proof of
+    //the clauses the formula converts to, which options.cnfFile receives.
+    //An LRAT proof only covers conflict analysis, so preprocessing is skipped.
+    //With options.checkProof the proof of an UNSAT answer is checked before
+    //it is reported, a proof that does not check is an IllegalStateException
+    public static boolean[] findModel(Expr expr, SolverOptions options)
     {   
-        //converts CNF formula to a list of Clause objects
-        List<Clause> clauses = CNFConverter.convertToClauses(expr);
-        CDCLSolver solver = new CDCLSolver(clauses);
-        return solver.solve();
+        //converts CNF formula to clauses packed in an arena
+        ClauseArena clauses = CNFConverter.convertToClauses(expr);
+        //simplification may remove variables, the model still covers all of them
+        int numVariables = maxVariable(clauses);
+        if (options.proofFile != null && options.threads > 1) {
+            throw new IllegalArgumentException("Proofs are only logged with one thread");
+        }
+
+        try {
+            if (options.cnfFile != null) {
+                CNFConverter.writeDimacs(clauses, numVariables, options.cnfFile);
+            }
+            if (options.proofFile == null) {
+                return simplifyAndSolve(clauses, numVariables, options);
+            }
+            SolverOptions solverOptions = options;
+            if (options.lratProof) {
+                solverOptions = options.copy();
+                solverOptions.substitute = false;
+                solverOptions.subsume = false;
+                solverOptions.eliminate = false;
+            }
+            //the checker keeps its own copy, solving changes the arena
+            ProofChecker checker = options.checkProof ? new ProofChecker(clauses, numVariables) : null;
+            boolean[] model;
+            //the arena passes every change of its clauses to the proof
+            try (DratProof proof = new DratProof(options.proofFile, options.binaryProof, options.lratProof)) {
+                clauses.logProof(proof);
+                model = simplifyAndSolve(clauses, numVariables, solverOptions);
+                if (options.printStats) {
+                    System.err.println("c proof additions        " + proof.getAdditions());
+                    System.err.println("c proof deletions        " + proof.getDeletions());
+                }
+            }
+            if (model == null && checker != null) {
+                checkProof(checker, options);
+            }
+            return model;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void checkProof(ProofChecker checker, SolverOptions options) throws IOException
+    {
+        long start = System.nanoTime();
+        boolean valid = options.lratProof
+                ? checker.checkLrat(options.proofFile, options.binaryProof, options.checkThreads)
+                : checker.checkDrat(options.proofFile, options.binaryProof);
+        if (!valid) {
+            throw new IllegalStateException("Proof check failed: " + checker.getError());
+        }
+        if (options.printStats) {
+            System.err.println("c proof checked lemmas   " + checker.getCheckedLemmas());
+            System.err.println("c proof RAT lemmas       " + checker.getRatLemmas());
+            System.err.println("c proof check time       " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+    }
+
+    private static boolean[] simplifyAndSolve(ClauseArena clauses, int numVariables, SolverOptions options)
+    {
+        //equivalent literals are replaced by one representative, the
+        //substituted variables get their values back from it at the end
+        EquivalenceSubstituter substituter = new EquivalenceSubstituter(clauses, numVariables);
+        if (options.substitute) {
+            boolean satisfiable = substituter.substitute();
+            if (options.printStats) {
+                substituter.print(System.err);
+            }
+            if (!satisfiable) {
+                return null;
+            }
+        }
+
+        //subsumption removes clauses and shortens others before the
+        //occurrence based elimination looks at them
+        if (options.subsume) {
+            IntVec original = new IntVec();
+            for (int cref = 0; cref < clauses.end(); cref = clauses.next(cref)) {
+                original.add(cref);
+            }
+            Subsumer subsumer = new Subsumer(clauses, numVariables);
+            boolean satisfiable = subsumer.run(original, new IntVec());
+            if (options.printStats) {
+                subsumer.print(System.err);
+            }
+            if (!satisfiable) {
+                return null;
+            }
+            clauses.compact();
+        }
+
+        //variable elimination rewrites the arena, the removed clauses are kept
+        //by the eliminator to fix up the model afterwards
+        VariableEliminator eliminator = new VariableEliminator(clauses);
+        if (options.eliminate) {
+            boolean satisfiable = eliminator.eliminate();
+            if (options.printStats) {
+                eliminator.print(System.err);
+            }
+            if (!satisfiable) {
+                return null;
+            }
+        }
+
+        boolean result = false;
+        boolean[] model = new boolean[numVariables + 1];
+        LocalSearch search = null;
+        if ("alone".equals(options.localSearch)) {
+            //local search cannot refute, when its flip budget runs out CDCL
+            //search takes over and starts from the best assignment it found
+            search = new LocalSearch(clauses, numVariables, options.probSat, options.seed);
+            result = search.run(options.localSearchFlips);
+            if (options.printStats) {
+                System.err.println("c local search flips     " + search.getFlips());
+            }
+            for (int variable = 1; variable < model.length && result; variable++) {
+                model[variable] = search.bestValue(variable);
+            }
+        }
+        if (result) {
+            //local search found a model
+        } else if ("cubes".equals(options.parallel)) {
+            CubeAndConquer cubeAndConquer = new CubeAndConquer(clauses, options);
+            result = cubeAndConquer.solve();
+            if (options.printStats) {
+                System.err.println("c cubes                  " + cubeAndConquer.getCubes());
+            }
+            for (int variable = 1; variable < model.length && result; variable++) {
+                model[variable] = cubeAndConquer.modelValue(variable);
+            }
+        } else if (options.threads > 1) {
+            PortfolioSolver portfolio = new PortfolioSolver(clauses, options);
+            result = portfolio.solve();
+            if (options.printStats) {
+                System.err.println("c portfolio winner       " + portfolio.getWinnerIndex());
+                portfolio.getStats().print(System.err);
+            }
+            for (int variable = 1; variable < model.length && result; variable++) {
+                model[variable] = portfolio.modelValue(variable);
+            }
+        } else {
+            CDCLSolver solver = new CDCLSolver(clauses, options);
+            for (int variable = 1; search != null && variable <= numVariables; variable++) {
+                solver.setPhase(variable, search.bestValue(variable));
+            }
+            result = solver.solve();
+            if (options.printStats) {
+                solver.getStats().print(System.err);
+            }
+            for (int variable = 1; variable < model.length && result; variable++) {
+                model[variable] = solver.modelValue(variable);
+            }
+        }
+        if (!result) {
+            return null;
+        }
+        eliminator.extendModel(model);
+        substituter.extendModel(model);
+        return model;
+
+    }
+
+    //writes the values of variables 1..numVariables as DIMACS competition
+    //v lines, "v 1 -2 3 ... 0", wrapped before 80 characters. Variables past
+    //the end of model are false
+    public static void printModel(boolean[] model, int numVariables, Writer out) throws IOException
+    {
+        BufferedWriter writer = new BufferedWriter(out, 1 << 16);
+        StringBuilder line = new StringBuilder("v");
+        for (int variable = 1; variable <= numVariables + 1; variable++) {
+            String literal = variable > numVariables ? "0"
+                    : (variable < model.length && model[variable] ? "" : "-") + variable;
+            if (line.length() + 1 + literal.length() >= 80) {
+                writer.write(line.append('\n').toString());
+                line.setLength(0);
+                line.append('v');
+            }
+            line.append(' ').append(literal);
+        }
+        writer.write(line.append('\n').toString());
+        writer.flush();
+    }
 
+    //highest variable occurring in the clauses
+    private static int maxVariable(ClauseArena clauses)
+    {
+        int maxVariable = 0;
+        for (int cref = 0; cref < clauses.end(); cref = clauses.next(cref)) {
+            for (int k = 0; k < clauses.size(cref); k++) {
+                maxVariable = Math.max(maxVariable, Literal.variable(clauses.literal(cref, k)));
+            }
+        }
+        return maxVariable;
     }
 }
@@ -0,0 +1,272 @@
+package edu.utexas.cs.alr.util;
+
+// Settings of a solver run, filled from the command line by parse().
+// The defaults are what the solver uses when it is created without options.
+public class SolverOptions {
+    public boolean printStats = false; // write statistics to stderr after solving
+    public String restarts = "glucose"; // luby, glucose or none
+    public int lubyUnit = 100; // conflicts per step of the Luby sequence
+    public double variableDecay = 0.95; // activity decay factor of the VSIDS branching heuristic
+    public boolean targetPhases = true; // decide towards the longest conflict free trail
+    public boolean invertPhases = false; // start with the less frequent polarity of each variable
+    public boolean rephase = true; // periodically reset the saved phases
+    public boolean eliminate = true; // bounded variable elimination before search
+    public boolean substitute = true; // equivalent literal substitution before search
+    public boolean subsume = true; // subsumption and strengthening before and during search
+    public boolean probe = true; // failed literal probing before and during search
+    public String vivify = "learned"; // clauses vivified during search: off, learned or all
+    public long seed = 0; // randomizes the initial branching order unless 0
+    public int threads = 1; // more than 1 runs a portfolio of differently configured solvers
+    public boolean share = true; // portfolio solvers exchange short learned clauses
+    public String parallel = "portfolio"; // with several threads: portfolio, or cubes for cube-and-conquer
+    public String proofFile = null; // DRAT proof of an UNSAT answer is written here unless null
+    public boolean binaryProof = true; // binary DRAT, or text DRAT for debugging
+    public String cnfFile = null; // the clauses the proof refers to are written here in DIMACS unless null
+    public boolean lratProof = false; // LRAT with hints instead of DRAT, turns simplification off
+    public boolean checkProof = false; // check the proof of an UNSAT answer before reporting it
+    public int checkThreads = 1; // threads that check an LRAT proof
+    public String localSearch = "off"; // off, hybrid to interleave it with CDCL, or alone instead of CDCL
+    public boolean probSat = true; // local search picks flips by ProbSAT, otherwise by WalkSAT
+    public long localSearchFlips = 10000000; // flips of local search alone before CDCL takes over
+    public boolean printModel = false; // print the model of a SAT answer as DIMACS v lines
+    public boolean verifyModel = false; // check the model against the input formula before answering SAT
+
+    // Settings of portfolio worker number index. Worker 0 uses these settings,
+    // the others vary the restart policy, phases, decay and seed
+    public SolverOptions forWorker(int index) {
+        SolverOptions worker = copy();
+        if (index == 0) {
+            return worker;
+        }
+        worker.printStats = false;
+        worker.seed = seed + index;
+        if (index % 2 == 1) {
+            worker.restarts = "luby".equals(restarts) ? "glucose" : "luby";
+        }
+        if ((index / 2) % 2 == 1) {
+            worker.targetPhases = !targetPhases;
+        }
+        if ((index / 4) % 2 == 1) {
+            worker.invertPhases = !invertPhases;
+        }
+        worker.variableDecay = WORKER_DECAYS[index % WORKER_DECAYS.length];
+        return worker;
+    }
+
+    private static final double[] WORKER_DECAYS = { 0.95, 0.85, 0.9, 0.99, 0.8 };
+
+    public SolverOptions copy() {
+        SolverOptions copy = new SolverOptions();
+        copy.printStats = printStats;
+        copy.restarts = restarts;
+        copy.lubyUnit = lubyUnit;
+        copy.variableDecay = variableDecay;
+        copy.targetPhases = targetPhases;
+        copy.invertPhases = invertPhases;
+        copy.rephase = rephase;
+        copy.eliminate = eliminate;
+        copy.substitute = substitute;
+        copy.subsume = subsume;
+        copy.probe = probe;
+        copy.vivify = vivify;
+        copy.seed = seed;
+        copy.threads = threads;
+        copy.share = share;
+        copy.parallel = parallel;
+        copy.proofFile = proofFile;
+        copy.binaryProof = binaryProof;
+        copy.cnfFile = cnfFile;
+        copy.lratProof = lratProof;
+        copy.checkProof = checkProof;
+        copy.checkThreads = checkThreads;
+        copy.localSearch = localSearch;
+        copy.probSat = probSat;
+        copy.localSearchFlips = localSearchFlips;
+        copy.printModel = printModel;
+        copy.verifyModel = verifyModel;
+        return copy;
+    }
+
+    public RestartPolicy createRestartPolicy() {
+        switch (restarts) {
+            case "luby":
+                return new LubyRestarts(lubyUnit);
+            case "none":
+                return new NoRestarts();
+            default:
+                return new GlucoseRestarts();
+        }
+    }
+
+    // Reads options of the form -name or -name=value, exits on anything unknown
+    public static SolverOptions parse(String[] args) {
+        SolverOptions options = new SolverOptions();
+        for (String arg : args) {
+            String name = arg;
+            String value = null;
+            int split = arg.indexOf('=');
+            if (split >= 0) {
+                name = arg.substring(0, split);
+                value = arg.substring(split + 1);
+            }
+            switch (name) {
+                case "-stats":
+                    options.printStats = true;
+                    break;
+                case "-restarts":
+                    if (!"luby".equals(value) && !"glucose".equals(value) && !"none".equals(value)) {
+                        fail("-restarts must be luby, glucose or none");
+                    }
+                    options.restarts = value;
+                    break;
+                case "-luby-unit":
+                    options.lubyUnit = parsePositive(name, value);
+                    break;
+                case "-target-phases":
+                    options.targetPhases = parseSwitch(name, value);
+                    break;
+                case "-rephase":
+                    options.rephase = parseSwitch(name, value);
+                    break;
+                case "-elim":
+                    options.eliminate = parseSwitch(name, value);
+                    break;
+                case "-equiv":
+                    options.substitute = parseSwitch(name, value);
+                    break;
+                case "-subsume":
+                    options.subsume = parseSwitch(name, value);
+                    break;
+                case "-probe":
+                    options.probe = parseSwitch(name, value);
+                    break;
+                case "-seed":
+                    options.seed = parseNonNegative(name, value);
+                    break;
+                case "-threads":
+                    options.threads = parsePositive(name, value);
+                    break;
+                case "-parallel":
+                    if (!"portfolio".equals(value) && !"cubes".equals(value)) {
+                        fail("-parallel must be portfolio or cubes");
+                    }
+                    options.parallel = value;
+                    break;
+                case "-share":
+                    options.share = parseSwitch(name, value);
+                    break;
+                case "-vivify":
+                    if (!"off".equals(value) && !"learned".equals(value) && !"all".equals(value)) {
+                        fail("-vivify must be off, learned or all");
+                    }
+                    options.vivify = value;
+                    break;
+                case "-proof":
+                    if (value == null || value.isEmpty()) {
+                        fail("-proof needs a file name");
+                    }
+                    options.proofFile = value;
+                    break;
+                case "-proof-format":
+                    if (!"binary".equals(value) && !"text".equals(value)) {
+                        fail("-proof-format must be binary or text");
+                    }
+                    options.binaryProof = "binary".equals(value);
+                    break;
+                case "-cnf":
+                    if (value == null || value.isEmpty()) {
+                        fail("-cnf needs a file name");
+                    }
+                    options.cnfFile = value;
+                    break;
+                case "-lrat":
+                    options.lratProof = parseSwitch(name, value);
+                    break;
+                case "-check-proof":
+                    options.checkProof = parseSwitch(name, value);
+                    break;
+                case "-check-threads":
+                    options.checkThreads = parsePositive(name, value);
+                    break;
+                case "-sls":
+                    if (!"off".equals(value) && !"hybrid".equals(value) && !"alone".equals(value)) {
+                        fail("-sls must be off, hybrid or alone");
+                    }
+                    options.localSearch = value;
+                    break;
+                case "-sls-rule":
+                    if (!"probsat".equals(value) && !"walksat".equals(value)) {
+                        fail("-sls-rule must be probsat or walksat");
+                    }
+                    options.probSat = "probsat".equals(value);
+                    break;
+                case "-sls-flips":
+                    options.localSearchFlips = parseNonNegative(name, value);
+                    break;
+                case "-model":
+                    options.printModel = parseSwitch(name, value);
+                    break;
+                case "-verify":
+                    options.verifyModel = parseSwitch(name, value);
+                    break;
+                default:
+                    fail("Unknown option " + arg);
+            }
+        }
+        if (options.proofFile != null && options.threads > 1) {
+            fail("-proof only works with -threads=1");
+        }
+        if (options.checkProof && options.proofFile == null) {
+            fail("-check-proof needs -proof");
+        }
+        return options;
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        fail(name + " needs a positive number");
+        return 0;
+    }
+
+    private static long parseNonNegative(String name, String value) {
+        try {
+            long number = Long.parseLong(value);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        fail(name + " needs a non-negative number");
+        return 0;
+    }
+
+    private static boolean parseSwitch(String name, String value) {
+        if ("on".equals(value)) {
+            return true;
+        }
+        if (!"off".equals(value)) {
+            fail(name + " must be on or off");
+        }
+        return false;
+    }
+
+    private static void fail(String message) {
+        System.err.println(message);
+        System.err.println("Options: -stats -restarts=luby|glucose|none -luby-unit=<conflicts>"
+                + " -target-phases=on|off -rephase=on|off -elim=on|off -equiv=on|off -subsume=on|off -probe=on|off"
+                + " -vivify=off|learned|all -seed=<n> -threads=<n>"
+                + " -share=on|off -parallel=portfolio|cubes"
+                + " -proof=<file> -proof-format=binary|text -cnf=<file>"
+                + " -lrat=on|off -check-proof=on|off -check-threads=<n> -model=on|off -verify=on|off"
+                + " -sls=off|hybrid|alone -sls-rule=probsat|walksat -sls-flips=<n>");
+        System.exit(1);
+    }
+}
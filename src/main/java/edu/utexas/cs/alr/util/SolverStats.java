@@ -0,0 +1,85 @@
+package edu.utexas.cs.alr.util;
+
+import java.io.PrintStream;
+
+// Counters collected by the solver during search. They are plain fields that
+// the solver increments directly, print() writes them as DIMACS style comment
+// lines so they can be mixed into the solver output.
+public class SolverStats {
+    public long decisions;
+    public long propagations;
+    public long conflicts;
+
+    // watch list visits during propagation
+    public long blockerHits; // clauses skipped because the blocker literal was true
+    public long clauseVisits; // clauses whose literals had to be read from the arena
+    public long restarts;
+    public long rephases;
+
+    // learned clause database
+    public long reductions;
+    public long deletedClauses;
+
+    // inprocessing
+    public long inprocessings;
+    public long subsumedClauses;
+    public long strengthenedClauses;
+    public long probes; // variables probed
+    public long failedLiterals;
+    public long probeImplied; // literals implied by both probes of a variable
+    public long hyperBinaries; // binary resolvents learned while probing
+    public long vivifiedClauses; // clauses shortened by vivification
+    public long vivifiedLiterals; // literals removed by vivification
+
+    // local search between rephases
+    public long localSearches;
+    public long localSearchFlips;
+    public long localSearchModels; // local searches that satisfied every clause
+
+    // clause sharing between parallel solvers
+    public long exportedClauses;
+    public long importedClauses;
+    public long duplicateClauses; // received clauses dropped because they were seen before
+
+    // learned clause minimization
+    public long learnedLiterals; // literals of the first UIP clauses before minimization
+    public long minimizedLiterals; // removed by recursive minimization
+    public long binaryMinimizedLiterals; // removed through binary clauses of the asserting literal
+
+    public void print(PrintStream out) {
+        out.println("c decisions              " + decisions);
+        out.println("c propagations           " + propagations);
+        out.println("c conflicts              " + conflicts);
+        out.println("c blocker hits           " + blockerHits + percentOf(blockerHits, blockerHits + clauseVisits));
+        out.println("c clause visits          " + clauseVisits + percentOf(clauseVisits, blockerHits + clauseVisits));
+        out.println("c restarts               " + restarts);
+        out.println("c rephases               " + rephases);
+        out.println("c reductions             " + reductions);
+        out.println("c deleted clauses        " + deletedClauses);
+        out.println("c inprocessings          " + inprocessings);
+        out.println("c subsumed clauses       " + subsumedClauses);
+        out.println("c strengthened clauses   " + strengthenedClauses);
+        out.println("c probes                 " + probes);
+        out.println("c failed literals        " + failedLiterals);
+        out.println("c probe implied          " + probeImplied);
+        out.println("c hyper binaries         " + hyperBinaries);
+        out.println("c vivified clauses       " + vivifiedClauses);
+        out.println("c vivified literals      " + vivifiedLiterals);
+        out.println("c local searches         " + localSearches);
+        out.println("c local search flips     " + localSearchFlips);
+        out.println("c local search models    " + localSearchModels);
+        out.println("c exported clauses       " + exportedClauses);
+        out.println("c imported clauses       " + importedClauses);
+        out.println("c duplicate clauses      " + duplicateClauses);
+        out.println("c learned literals       " + learnedLiterals);
+        out.println("c minimized literals     " + minimizedLiterals + percentOf(minimizedLiterals, learnedLiterals));
+        out.println("c binary minimized       " + binaryMinimizedLiterals + percentOf(binaryMinimizedLiterals, learnedLiterals));
+    }
+
+    private static String percentOf(long part, long total) {
+        if (total == 0) {
+            return "";
+        }
+        return String.format(" (%.2f %%)", 100.0 * part / total);
+    }
+}
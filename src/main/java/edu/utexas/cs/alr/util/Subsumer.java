@@ -0,0 +1,355 @@
+package edu.utexas.cs.alr.util;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+// Removes subsumed clauses and strengthens clauses by self-subsuming resolution.
+//
+// C subsumes D when every literal of C is in D, D is then redundant. C
+// strengthens D when that holds except for one literal l of C whose negation is
+// in D: resolving C and D on l gives D without !l, which replaces D.
+//
+// Clauses are processed from short to long. Each processed clause is checked
+// against the clauses already indexed, which are never longer, and is then
+// indexed itself under its literal with the fewest occurrences. A clause C
+// that subsumes or strengthens D contains its index literal or the negation
+// of it in D, so looking up both polarities of every literal of D finds every
+// candidate while each clause sits in only one list. A 64-bit signature per
+// clause, one bit per variable modulo 64, rules out most candidates before
+// their literals are compared.
+//
+// A strengthened clause is shorter than the clauses indexed before it, so it
+// may in turn subsume or strengthen them. Every clause already processed is
+// also listed under all of its literals, and after strengthening a backward
+// pass checks the clauses in the lists of the least occurring variable of the
+// new clause, which any clause it subsumes or strengthens contains. Clauses
+// strengthened by that pass get a backward pass of their own.
+//
+// Duplicate literals are removed and tautologies are deleted in the same pass,
+// in time linear in the clause size.
+public class Subsumer {
+    private final ClauseArena arena;
+    private final int numVariables;
+
+    private IntVec[] occurrences; // per literal code, the indexed clauses, as positions in the candidate arrays
+    private IntVec[] containing; // per literal code, every processed clause with the literal
+    private int[] crefs; // the candidate clauses
+    private long[] signatures;
+    private boolean[] isIrredundant;
+    private int[] indexLiterals; // literal an irredundant clause is indexed under in occurrences
+    private int[] counts; // per literal code, occurrences among the candidates
+    private IntVec pending; // strengthened irredundant clauses waiting for their backward pass
+    private int[] marks; // per literal code, equals stamp for the literals of the clause being checked
+    private int stamp;
+    private IntVec literals; // scratch space for normalized and strengthened clauses
+
+    private long subsumed;
+    private long strengthened;
+    private long tautologies;
+
+    public Subsumer(ClauseArena arena, int numVariables) {
+        this.arena = arena;
+        this.numVariables = numVariables;
+        this.marks = new int[2 * (numVariables + 1)];
+        this.stamp = 0;
+        this.literals = new IntVec();
+        this.pending = new IntVec();
+    }
+
+    // Runs subsumption over the clauses of both lists. Clauses in irredundant
+    // may subsume and strengthen any clause, clauses in redundant (learned ones)
+    // may only be subsumed and strengthened themselves, since the formula does
+    // not depend on them. Deleted clauses are marked in the arena and removed from
+    // the lists, strengthened clauses are reallocated and replaced in the lists.
+    // Returns false if strengthening produced the empty clause
+    public boolean run(IntVec irredundant, IntVec redundant) {
+        int count = irredundant.size() + redundant.size();
+        crefs = new int[count];
+        signatures = new long[count];
+        isIrredundant = new boolean[count];
+        indexLiterals = new int[count];
+        long[] order = new long[count]; // size in the high bits, position in the low bits
+
+        int n = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            IntVec list = pass == 0 ? irredundant : redundant;
+            for (int i = 0; i < list.size(); i++) {
+                int cref = list.get(i);
+                if (arena.isDeleted(cref)) {
+                    continue;
+                }
+                cref = normalize(cref);
+                if (cref < 0) {
+                    continue;
+                }
+                crefs[n] = cref;
+                isIrredundant[n] = pass == 0;
+                order[n] = ((long) arena.size(cref) << 32) | n;
+                n++;
+            }
+        }
+        Arrays.sort(order, 0, n);
+
+        counts = new int[2 * (numVariables + 1)];
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < arena.size(crefs[i]); k++) {
+                counts[arena.literal(crefs[i], k)]++;
+            }
+        }
+        occurrences = new IntVec[2 * (numVariables + 1)];
+        containing = new IntVec[2 * (numVariables + 1)];
+        for (int code = 0; code < occurrences.length; code++) {
+            occurrences[code] = new IntVec();
+            containing[code] = new IntVec();
+        }
+
+        boolean satisfiable = true;
+        for (int o = 0; o < n && satisfiable; o++) {
+            int index = (int) order[o];
+            // strengthening shrinks the clause, it is then checked again
+            boolean changed = true;
+            boolean shortened = false;
+            while (changed) {
+                changed = false;
+                int cref = crefs[index];
+                signatures[index] = signature(cref);
+                int result = check(index);
+                if (result == SUBSUMED) {
+                    arena.markDeleted(cref);
+                    subsumed++;
+                    break;
+                }
+                if (result >= 0) {
+                    int strengthenedCref = removeLiteral(cref, result);
+                    crefs[index] = strengthenedCref;
+                    strengthened++;
+                    if (arena.size(strengthenedCref) == 0) {
+                        satisfiable = false;
+                        break;
+                    }
+                    changed = true;
+                    shortened = true;
+                }
+            }
+            int cref = crefs[index];
+            if (!satisfiable || arena.isDeleted(cref)) {
+                continue;
+            }
+            if (isIrredundant[index]) {
+                addToIndex(index);
+            }
+            for (int k = 0; k < arena.size(cref); k++) {
+                containing[arena.literal(cref, k)].add(index);
+            }
+            if (shortened && isIrredundant[index]) {
+                satisfiable = backward(index);
+            }
+        }
+        occurrences = null;
+        containing = null;
+
+        // write the surviving references back into the lists they came from
+        irredundant.clear();
+        redundant.clear();
+        for (int i = 0; i < n; i++) {
+            if (!arena.isDeleted(crefs[i])) {
+                (isIrredundant[i] ? irredundant : redundant).add(crefs[i]);
+            }
+        }
+        crefs = null;
+        signatures = null;
+        isIrredundant = null;
+        indexLiterals = null;
+        counts = null;
+        return satisfiable;
+    }
+
+    public long getSubsumed() {
+        return subsumed;
+    }
+
+    public long getStrengthened() {
+        return strengthened;
+    }
+
+    public void print(PrintStream out) {
+        out.println("c subsumed clauses      " + subsumed);
+        out.println("c strengthened clauses  " + strengthened);
+        out.println("c tautologies removed   " + tautologies);
+    }
+
+    private static final int SUBSUMED = -1;
+    private static final int NEITHER = -2;
+
+    // Looks for an indexed clause that subsumes or strengthens the clause at index.
+    // Returns SUBSUMED, the literal to remove from the clause, or NEITHER
+    private int check(int index) {
+        int cref = crefs[index];
+        long signature = signatures[index];
+        int size = arena.size(cref);
+        mark(cref);
+        for (int k = 0; k < size; k++) {
+            int literal = arena.literal(cref, k);
+            for (int sign = 0; sign < 2; sign++) {
+                IntVec list = occurrences[sign == 0 ? literal : Literal.negate(literal)];
+                for (int i = 0; i < list.size(); i++) {
+                    int other = list.get(i);
+                    if (other == index || arena.isDeleted(crefs[other])
+                            || (signatures[other] & ~signature) != 0) {
+                        continue;
+                    }
+                    int result = subsumes(crefs[other]);
+                    if (result != NEITHER) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return NEITHER;
+    }
+
+    // Checks the processed clauses against the strengthened irredundant clause at
+    // start, which is shorter than when they were checked against it. Clauses it
+    // subsumes are deleted, clauses it strengthens are shortened and checked
+    // against in turn. Returns false if strengthening produced the empty clause
+    private boolean backward(int start) {
+        pending.clear();
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            int index = pending.pop();
+            int cref = crefs[index];
+            if (arena.isDeleted(cref)) {
+                continue;
+            }
+            int size = arena.size(cref);
+            int best = arena.literal(cref, 0);
+            for (int k = 1; k < size; k++) {
+                int literal = arena.literal(cref, k);
+                if (counts[literal] + counts[Literal.negate(literal)] < counts[best] + counts[Literal.negate(best)]) {
+                    best = literal;
+                }
+            }
+            for (int sign = 0; sign < 2; sign++) {
+                IntVec list = containing[sign == 0 ? best : Literal.negate(best)];
+                for (int i = 0; i < list.size(); i++) {
+                    int other = list.get(i);
+                    int otherCref = crefs[other];
+                    if (other == index || arena.isDeleted(otherCref) || arena.size(otherCref) < size
+                            || (signatures[index] & ~signatures[other]) != 0) {
+                        continue;
+                    }
+                    mark(otherCref);
+                    int result = subsumes(cref);
+                    if (result == SUBSUMED) {
+                        arena.markDeleted(otherCref);
+                        subsumed++;
+                    } else if (result >= 0) {
+                        otherCref = removeLiteral(otherCref, result);
+                        crefs[other] = otherCref;
+                        signatures[other] = signature(otherCref);
+                        strengthened++;
+                        if (arena.size(otherCref) == 0) {
+                            return false;
+                        }
+                        if (isIrredundant[other]) {
+                            if (indexLiterals[other] == result) {
+                                removeFromIndex(other);
+                                addToIndex(other);
+                            }
+                            pending.add(other);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // indexes the irredundant clause at index under its literal with the fewest occurrences
+    private void addToIndex(int index) {
+        int cref = crefs[index];
+        int best = arena.literal(cref, 0);
+        for (int k = 1; k < arena.size(cref); k++) {
+            if (counts[arena.literal(cref, k)] < counts[best]) {
+                best = arena.literal(cref, k);
+            }
+        }
+        occurrences[best].add(index);
+        indexLiterals[index] = best;
+    }
+
+    private void removeFromIndex(int index) {
+        IntVec list = occurrences[indexLiterals[index]];
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) != index) {
+                list.set(kept++, list.get(i));
+            }
+        }
+        list.shrink(kept);
+    }
+
+    private void mark(int cref) {
+        stamp++;
+        for (int k = 0; k < arena.size(cref); k++) {
+            marks[arena.literal(cref, k)] = stamp;
+        }
+    }
+
+    // Compares a candidate with the marked clause. Returns SUBSUMED if all its
+    // literals are marked, the negation of its only literal that is marked
+    // negated, or NEITHER
+    private int subsumes(int candidate) {
+        int flipped = NEITHER;
+        for (int k = 0; k < arena.size(candidate); k++) {
+            int literal = arena.literal(candidate, k);
+            if (marks[literal] == stamp) {
+                continue;
+            }
+            if (flipped == NEITHER && marks[Literal.negate(literal)] == stamp) {
+                flipped = Literal.negate(literal);
+                continue;
+            }
+            return NEITHER;
+        }
+        return flipped == NEITHER ? SUBSUMED : flipped;
+    }
+
+    // Removes duplicate literals from a clause and deletes it if it is a
+    // tautology. Returns the reference of the clean clause, or -1 if it was deleted
+    private int normalize(int cref) {
+        literals.clear();
+        for (int k = 0; k < arena.size(cref); k++) {
+            literals.add(arena.literal(cref, k));
+        }
+        stamp++;
+        if (!CNFConverter.normalizeClause(literals, marks, stamp)) {
+            arena.markDeleted(cref);
+            tautologies++;
+            return -1;
+        }
+        if (literals.size() == arena.size(cref)) {
+            return cref;
+        }
+        return arena.reallocate(cref, literals);
+    }
+
+    // the clause without literal, as a new clause that replaces the old one
+    private int removeLiteral(int cref, int literal) {
+        literals.clear();
+        for (int k = 0; k < arena.size(cref); k++) {
+            if (arena.literal(cref, k) != literal) {
+                literals.add(arena.literal(cref, k));
+            }
+        }
+        return arena.reallocate(cref, literals);
+    }
+
+    private long signature(int cref) {
+        long signature = 0;
+        for (int k = 0; k < arena.size(cref); k++) {
+            signature |= 1L << (Literal.variable(arena.literal(cref, k)) & 63);
+        }
+        return signature;
+    }
+}
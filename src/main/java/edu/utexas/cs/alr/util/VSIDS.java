@@ -0,0 +1,72 @@
+package edu.utexas.cs.alr.util;
+
+// Exponential VSIDS branching heuristic. Every variable has a double activity;
+// variables involved in a conflict are bumped by the current increment, and
+// instead of decaying every activity after each conflict the increment itself
+// grows geometrically, which has the same relative effect in O(1). When an
+// activity gets too large everything is scaled down together.
+//
+// Unassigned variables are kept in an indexed max-heap by activity. Assigned
+// variables are not removed eagerly: the solver discards them when they
+// surface at the top, and puts them back when it backtracks.
+public class VSIDS {
+    private static final double RESCALE_LIMIT = 1e100;
+    private static final double RESCALE_FACTOR = 1e-100;
+
+    private final double[] activity; // indexed by variable
+    private final IndexedHeap heap;
+    private final double decay;
+    private double increment;
+
+    public VSIDS(int numVariables, double decay) {
+        this.activity = new double[numVariables + 1];
+        this.heap = new IndexedHeap(activity);
+        this.decay = decay;
+        this.increment = 1.0;
+    }
+
+    // Seeds the activity of a variable before search, e.g. with its occurrence count
+    public void setInitialActivity(int variable, double value) {
+        activity[variable] = value;
+        heap.increased(variable);
+        heap.decreased(variable);
+    }
+
+    public double getActivity(int variable) {
+        return activity[variable];
+    }
+
+    // Makes the variable available for branching again, used on backtrack
+    public void insert(int variable) {
+        heap.insert(variable);
+    }
+
+    public void bump(int variable) {
+        activity[variable] += increment;
+        if (activity[variable] > RESCALE_LIMIT) {
+            rescale();
+        }
+        heap.increased(variable);
+    }
+
+    // Called once per conflict, older bumps become relatively less important
+    public void decayAll() {
+        increment /= decay;
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    // Removes and returns the variable with the highest activity
+    public int removeMax() {
+        return heap.removeMax();
+    }
+
+    private void rescale() {
+        for (int v = 1; v < activity.length; v++) {
+            activity[v] *= RESCALE_FACTOR;
+        }
+        increment *= RESCALE_FACTOR;
+    }
+}
@@ -0,0 +1,323 @@
+package edu.utexas.cs.alr.util;
+
+import java.io.PrintStream;
+
+// SatELite style bounded variable elimination, run on the original clauses
+// before search. A variable x is eliminated by replacing all clauses that
+// contain x or !x with their non tautological resolvents on x, which is only
+// done when that does not increase the number of clauses. Tseitin auxiliary
+// variables usually qualify, since each occurs in a handful of short clauses.
+//
+// Variables are tried cheapest first, the cost being the product of the
+// positive and negative occurrence counts. After an elimination the variables
+// of the touched clauses are queued again, their counts have changed.
+//
+// The removed clauses are kept on a reconstruction stack. A model of the
+// simplified formula is turned into a model of the original one by walking
+// the stack backwards and flipping eliminated variables where needed.
+public class VariableEliminator {
+    private static final int MAX_RESOLUTIONS = 400; // skip variables with more occurrence pairs than this
+    private static final int MAX_RESOLVENT_SIZE = 20; // longer resolvents make an elimination fail
+
+    private final ClauseArena arena;
+    private final int numVariables;
+    private IntVec[] occurrences; // for each literal code, the clauses containing it, deleted ones are dropped lazily
+    private int[] occurrenceCounts; // live clauses per literal code
+    private double[] costs; // negated elimination cost per variable, so the max-heap yields the cheapest
+    private IndexedHeap queue;
+    private boolean[] eliminated;
+
+    // scratch space for resolution
+    private int[] marks; // per literal code, equals mark when the literal is in the first clause
+    private int mark;
+    private IntVec resolvent;
+    private IntVec resolvents; // literals of all resolvents of a variable, each preceded by its size
+    private boolean[] isTouched; // variables whose occurrence counts changed in the current elimination
+    private IntVec touched;
+
+    // eliminated clauses, each stored as its literals with the eliminated literal
+    // first, followed by the clause size
+    private IntVec reconstruction;
+
+    private int eliminatedVariables;
+    private int removedClauses;
+    private int addedClauses;
+
+    public VariableEliminator(ClauseArena arena) {
+        this.arena = arena;
+        int maxVariable = 0;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            for (int k = 0; k < arena.size(cref); k++) {
+                maxVariable = Math.max(maxVariable, Literal.variable(arena.literal(cref, k)));
+            }
+        }
+        this.numVariables = maxVariable;
+        this.reconstruction = new IntVec();
+        this.resolvent = new IntVec();
+        this.resolvents = new IntVec();
+        this.touched = new IntVec();
+    }
+
+    // highest variable of the original formula
+    public int getNumVariables() {
+        return numVariables;
+    }
+
+    // Eliminates variables until none qualifies any more and compacts the arena,
+    // which then only holds the simplified formula. Returns false if an empty
+    // resolvent shows the formula is unsatisfiable
+    public boolean eliminate() {
+        buildOccurrences();
+        queue = new IndexedHeap(costs);
+        for (int variable = 1; variable <= numVariables; variable++) {
+            if (occurrenceCounts[Literal.of(variable, false)] + occurrenceCounts[Literal.of(variable, true)] > 0) {
+                updateCost(variable);
+                queue.insert(variable);
+            }
+        }
+
+        boolean satisfiable = true;
+        while (!queue.isEmpty()) {
+            int variable = queue.removeMax();
+            if (!tryEliminate(variable)) {
+                satisfiable = false;
+                break;
+            }
+        }
+        arena.compact();
+        occurrences = null;
+        queue = null;
+        return satisfiable;
+    }
+
+    // Sets the eliminated variables of a model of the simplified formula so that
+    // it satisfies the original formula. model is indexed by variable
+    public void extendModel(boolean[] model) {
+        int i = reconstruction.size() - 1;
+        while (i >= 0) {
+            int size = reconstruction.get(i);
+            int start = i - size;
+            boolean satisfied = false;
+            for (int k = start; k < i; k++) {
+                int literal = reconstruction.get(k);
+                if (model[Literal.variable(literal)] != Literal.isNegated(literal)) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) {
+                // the eliminated literal comes first, make it true
+                int pivot = reconstruction.get(start);
+                model[Literal.variable(pivot)] = !Literal.isNegated(pivot);
+            }
+            i = start - 1;
+        }
+    }
+
+    public void print(PrintStream out) {
+        out.println("c eliminated variables  " + eliminatedVariables);
+        out.println("c eliminated clauses    " + removedClauses);
+        out.println("c resolvents added      " + addedClauses);
+    }
+
+    private void buildOccurrences() {
+        int literals = 2 * (numVariables + 1);
+        occurrences = new IntVec[literals];
+        occurrenceCounts = new int[literals];
+        marks = new int[literals];
+        mark = 0;
+        costs = new double[numVariables + 1];
+        eliminated = new boolean[numVariables + 1];
+        isTouched = new boolean[numVariables + 1];
+        for (int code = 0; code < literals; code++) {
+            occurrences[code] = new IntVec();
+        }
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (!arena.isDeleted(cref)) {
+                addOccurrences(cref);
+            }
+        }
+    }
+
+    private void addOccurrences(int cref) {
+        for (int k = 0; k < arena.size(cref); k++) {
+            int literal = arena.literal(cref, k);
+            occurrences[literal].add(cref);
+            occurrenceCounts[literal]++;
+        }
+    }
+
+    private void removeClause(int cref) {
+        for (int k = 0; k < arena.size(cref); k++) {
+            occurrenceCounts[arena.literal(cref, k)]--;
+        }
+        arena.markDeleted(cref);
+        removedClauses++;
+    }
+
+    private void updateCost(int variable) {
+        long positive = occurrenceCounts[Literal.of(variable, false)];
+        long negative = occurrenceCounts[Literal.of(variable, true)];
+        costs[variable] = -(double) (positive * negative);
+    }
+
+    // drops the deleted clauses from an occurrence list
+    private IntVec liveOccurrences(int literal) {
+        IntVec list = occurrences[literal];
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int cref = list.get(i);
+            if (!arena.isDeleted(cref)) {
+                list.set(kept++, cref);
+            }
+        }
+        list.shrink(kept);
+        return list;
+    }
+
+    // Eliminates the variable if its resolvents are no more than the clauses they
+    // replace. Returns false only if an empty resolvent was derived
+    private boolean tryEliminate(int variable) {
+        int positiveLiteral = Literal.of(variable, false);
+        int negativeLiteral = Literal.of(variable, true);
+        IntVec positive = liveOccurrences(positiveLiteral);
+        IntVec negative = liveOccurrences(negativeLiteral);
+        int limit = positive.size() + negative.size();
+        if (limit == 0 || (long) positive.size() * negative.size() > MAX_RESOLUTIONS) {
+            return true;
+        }
+
+        // collect the resolvents first, giving up as soon as there are too many
+        resolvents.clear();
+        int count = 0;
+        for (int i = 0; i < positive.size(); i++) {
+            for (int j = 0; j < negative.size(); j++) {
+                if (!resolve(positive.get(i), negative.get(j), variable)) {
+                    continue;
+                }
+                if (++count > limit || resolvent.size() > MAX_RESOLVENT_SIZE) {
+                    return true;
+                }
+                resolvents.add(resolvent.size());
+                for (int k = 0; k < resolvent.size(); k++) {
+                    resolvents.add(resolvent.get(k));
+                }
+            }
+        }
+
+        // save the clauses of the smaller side for model reconstruction, plus a
+        // unit that gives the variable a default value satisfying the other side
+        if (positive.size() <= negative.size()) {
+            saveForReconstruction(positive, positiveLiteral);
+            saveUnit(negativeLiteral);
+        } else {
+            saveForReconstruction(negative, negativeLiteral);
+            saveUnit(positiveLiteral);
+        }
+
+        // the resolvents are added before the clauses they come from are removed,
+        // the order a proof of the arena needs
+        int i = 0;
+        while (i < resolvents.size()) {
+            int size = resolvents.get(i);
+            resolvent.clear();
+            for (int k = 1; k <= size; k++) {
+                resolvent.add(resolvents.get(i + k));
+            }
+            int cref = arena.allocate(resolvent, false);
+            if (size == 0) {
+                return false;
+            }
+            addOccurrences(cref);
+            addedClauses++;
+            i += size + 1;
+        }
+
+        for (int k = 0; k < positive.size(); k++) {
+            touchClause(positive.get(k));
+            removeClause(positive.get(k));
+        }
+        for (int k = 0; k < negative.size(); k++) {
+            touchClause(negative.get(k));
+            removeClause(negative.get(k));
+        }
+        positive.clear();
+        negative.clear();
+        eliminated[variable] = true;
+        eliminatedVariables++;
+        requeueTouched();
+        return true;
+    }
+
+    // Resolves two clauses on variable into resolvent. Returns false if the
+    // resolvent is a tautology
+    private boolean resolve(int positiveCref, int negativeCref, int variable) {
+        mark++;
+        resolvent.clear();
+        for (int k = 0; k < arena.size(positiveCref); k++) {
+            int literal = arena.literal(positiveCref, k);
+            if (Literal.variable(literal) != variable) {
+                marks[literal] = mark;
+                resolvent.add(literal);
+            }
+        }
+        for (int k = 0; k < arena.size(negativeCref); k++) {
+            int literal = arena.literal(negativeCref, k);
+            if (Literal.variable(literal) == variable || marks[literal] == mark) {
+                continue;
+            }
+            if (marks[Literal.negate(literal)] == mark) {
+                return false;
+            }
+            resolvent.add(literal);
+        }
+        return true;
+    }
+
+    private void saveForReconstruction(IntVec crefs, int pivot) {
+        for (int i = 0; i < crefs.size(); i++) {
+            int cref = crefs.get(i);
+            reconstruction.add(pivot);
+            for (int k = 0; k < arena.size(cref); k++) {
+                if (arena.literal(cref, k) != pivot) {
+                    reconstruction.add(arena.literal(cref, k));
+                }
+            }
+            reconstruction.add(arena.size(cref));
+        }
+    }
+
+    private void saveUnit(int literal) {
+        reconstruction.add(literal);
+        reconstruction.add(1);
+    }
+
+    // collects the variables of a removed clause, resolvents only contain those too
+    private void touchClause(int cref) {
+        for (int k = 0; k < arena.size(cref); k++) {
+            int variable = Literal.variable(arena.literal(cref, k));
+            if (!isTouched[variable]) {
+                isTouched[variable] = true;
+                touched.add(variable);
+            }
+        }
+    }
+
+    private void requeueTouched() {
+        for (int i = 0; i < touched.size(); i++) {
+            int variable = touched.get(i);
+            isTouched[variable] = false;
+            if (eliminated[variable]) {
+                continue;
+            }
+            updateCost(variable);
+            if (queue.contains(variable)) {
+                queue.increased(variable);
+                queue.decreased(variable);
+            } else {
+                queue.insert(variable);
+            }
+        }
+        touched.clear();
+    }
+}
@@ -0,0 +1,114 @@
+package edu.utexas.cs.alr.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CoreTest {
+    private static final int HOLES = 3;
+    private static final int PIGEONS = HOLES + 1;
+    private static final int PADDING = 4; // assumptions that are never needed
+
+    // variable of pigeon i sitting in hole j
+    private static int pigeon(int i, int j) {
+        return i * HOLES + j + 1;
+    }
+
+    // Pigeonhole clauses, clause k only counts when its selector variable is
+    // assumed true. Each padding selector only switches on a clause of its own
+    // free variable. Returns the solver and fills selectors with the assumptions
+    private static CDCLSolver guardedPigeonhole(int[] selectors) {
+        int free = PIGEONS * HOLES;
+        int numVariables = free + PADDING + selectors.length;
+        CDCLSolver solver = new CDCLSolver(numVariables, new SolverOptions());
+        int next = free + PADDING + 1;
+        int k = 0;
+        for (int i = 0; i < PIGEONS; i++) {
+            int[] clause = new int[HOLES + 1];
+            for (int j = 0; j < HOLES; j++) {
+                clause[j] = Literal.of(pigeon(i, j), false);
+            }
+            clause[HOLES] = Literal.of(next, true);
+            solver.addClause(clause);
+            selectors[k++] = Literal.of(next++, false);
+        }
+        for (int j = 0; j < HOLES; j++) {
+            for (int i = 0; i < PIGEONS; i++) {
+                for (int other = i + 1; other < PIGEONS; other++) {
+                    solver.addClause(Literal.of(pigeon(i, j), true), Literal.of(pigeon(other, j), true),
+                            Literal.of(next, true));
+                    selectors[k++] = Literal.of(next++, false);
+                }
+            }
+        }
+        for (int p = 0; p < PADDING; p++) {
+            solver.addClause(Literal.of(free + p + 1, false), Literal.of(next, true));
+            selectors[k++] = Literal.of(next++, false);
+        }
+        return solver;
+    }
+
+    private static int[] selectors() {
+        return new int[PIGEONS + HOLES * PIGEONS * (PIGEONS - 1) / 2 + PADDING];
+    }
+
+    private static void assertSubset(int[] subset, int[] set) {
+        Set<Integer> literals = new HashSet<>();
+        for (int literal : set) {
+            literals.add(literal);
+        }
+        for (int literal : subset) {
+            assertTrue(Literal.toString(literal) + " is not an assumption", literals.contains(literal));
+        }
+    }
+
+    @Test
+    public void coreIsUnsatisfiableSubsetOfAssumptions() {
+        int[] assumptions = selectors();
+        CDCLSolver solver = guardedPigeonhole(assumptions);
+        assertFalse(solver.solve(assumptions));
+        int[] core = solver.getCore();
+        assertTrue(core.length > 0);
+        assertSubset(core, assumptions);
+
+        assertFalse(solver.solve(core));
+        assertFalse(solver.isInterrupted());
+    }
+
+    @Test
+    public void shrunkCoreIsStillUnsatisfiable() {
+        int[] assumptions = selectors();
+        CDCLSolver solver = guardedPigeonhole(assumptions);
+        assertFalse(solver.solve(assumptions));
+        int[] core = solver.getCore();
+        int[] shrunk = solver.shrinkCore(core, 1000, 100000);
+        assertSubset(shrunk, core);
+        assertArrayEquals(shrunk, solver.getCore());
+
+        assertFalse(solver.solve(shrunk));
+        assertFalse(solver.isInterrupted());
+        // the pigeonhole clauses are minimally unsatisfiable, only the padding goes
+        int[] padding = new int[PADDING];
+        System.arraycopy(assumptions, assumptions.length - PADDING, padding, 0, PADDING);
+        for (int literal : padding) {
+            for (int kept : shrunk) {
+                assertNotEquals(literal, kept);
+            }
+        }
+        assertEquals(assumptions.length - PADDING, shrunk.length);
+    }
+
+    @Test
+    public void satisfiableCallHasNoCore() {
+        int[] assumptions = selectors();
+        CDCLSolver solver = guardedPigeonhole(assumptions);
+        // without the first pigeon the others fit
+        int[] rest = new int[assumptions.length - 1];
+        System.arraycopy(assumptions, 1, rest, 0, rest.length);
+        assertTrue(solver.solve(rest));
+        assertEquals(0, solver.getCore().length);
+    }
+}
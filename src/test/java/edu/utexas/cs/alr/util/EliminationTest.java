@@ -0,0 +1,127 @@
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static edu.utexas.cs.alr.ast.ExprFactory.*;
+import static org.junit.Assert.*;
+
+public class EliminationTest {
+    private static final int NUM_VARIABLES = 40;
+    private static final int NUM_CLAUSES = 80;
+    private static final int CHAIN = 50;
+
+    private static Expr literal(int variable, boolean negated) {
+        return negated ? mkNEG(mkVAR(variable)) : mkVAR(variable);
+    }
+
+    // Random 3-SAT clauses that a hidden assignment satisfies. There are few
+    // clauses per variable, so many variables can be eliminated
+    private static Expr plantedFormula(long seed) {
+        Random random = new Random(seed);
+        boolean[] hidden = new boolean[NUM_VARIABLES + 1];
+        for (int variable = 1; variable <= NUM_VARIABLES; variable++) {
+            hidden[variable] = random.nextBoolean();
+        }
+        Expr formula = null;
+        int added = 0;
+        while (added < NUM_CLAUSES) {
+            int[] variables = new int[3];
+            boolean[] negated = new boolean[3];
+            boolean satisfied = false;
+            for (int k = 0; k < 3; k++) {
+                variables[k] = 1 + random.nextInt(NUM_VARIABLES);
+                negated[k] = random.nextBoolean();
+                satisfied |= hidden[variables[k]] != negated[k];
+            }
+            if (!satisfied) {
+                continue;
+            }
+            Expr clause = literal(variables[0], negated[0]);
+            for (int k = 1; k < 3; k++) {
+                clause = mkOR(clause, literal(variables[k], negated[k]));
+            }
+            formula = formula == null ? clause : mkAND(clause, formula);
+            added++;
+        }
+        return formula;
+    }
+
+    // x1 -> x2 -> ... -> xn together with (x1 | xn) and (!x1 | !xn), which
+    // force xn true and x1 false. Eliminating the chain leaves no clause at all
+    private static Expr chain() {
+        Expr formula = mkAND(mkOR(mkVAR(1), mkVAR(CHAIN)), mkOR(mkNEG(mkVAR(1)), mkNEG(mkVAR(CHAIN))));
+        for (int variable = 1; variable < CHAIN; variable++) {
+            formula = mkAND(mkOR(mkNEG(mkVAR(variable)), mkVAR(variable + 1)), formula);
+        }
+        return formula;
+    }
+
+    // the value of the formula under the assignment indexed by variable id
+    private static boolean satisfies(Expr e, boolean[] model) {
+        switch (e.getKind()) {
+            case VAR:
+                return model[(int) ((VarExpr) e).getId()];
+            case NEG:
+                return !satisfies(((NegExpr) e).getExpr(), model);
+            case AND:
+                return satisfies(((AndExpr) e).getLeft(), model) && satisfies(((AndExpr) e).getRight(), model);
+            case OR:
+                return satisfies(((OrExpr) e).getLeft(), model) || satisfies(((OrExpr) e).getRight(), model);
+            case IMPL:
+                return !satisfies(((ImplExpr) e).getAntecedent(), model) || satisfies(((ImplExpr) e).getConsequent(), model);
+            default:
+                return satisfies(((EquivExpr) e).getLeft(), model) == satisfies(((EquivExpr) e).getRight(), model);
+        }
+    }
+
+    // number of variables that occur in some clause of the arena
+    private static int occurringVariables(ClauseArena arena) {
+        boolean[] occurs = new boolean[Math.max(CHAIN, NUM_VARIABLES) + 1];
+        int count = 0;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (arena.isDeleted(cref)) {
+                continue;
+            }
+            for (int i = 0; i < arena.size(cref); i++) {
+                int variable = Literal.variable(arena.literal(cref, i));
+                if (!occurs[variable]) {
+                    occurs[variable] = true;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void modelsSatisfyTheOriginalFormula() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Expr formula = plantedFormula(seed);
+            ClauseArena clauses = CNFConverter.convertToClauses(formula);
+            int before = occurringVariables(clauses);
+            assertTrue(new VariableEliminator(clauses).eliminate());
+            assertTrue(occurringVariables(clauses) < before);
+
+            boolean[] model = SatUtil.findModel(formula, new SolverOptions());
+            assertNotNull(model);
+            assertTrue(satisfies(formula, model));
+        }
+    }
+
+    @Test
+    public void modelOfAFullyEliminatedFormula() {
+        Expr formula = chain();
+        ClauseArena clauses = CNFConverter.convertToClauses(formula);
+        assertTrue(new VariableEliminator(clauses).eliminate());
+        assertEquals(0, occurringVariables(clauses));
+
+        boolean[] model = SatUtil.findModel(formula, new SolverOptions());
+        assertNotNull(model);
+        assertTrue(satisfies(formula, model));
+        assertFalse(model[1]);
+        assertTrue(model[CHAIN]);
+    }
+}
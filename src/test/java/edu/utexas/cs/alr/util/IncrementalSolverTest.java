@@ -0,0 +1,48 @@
+package edu.utexas.cs.alr.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IncrementalSolverTest {
+    // literal code of a DIMACS literal
+    private static int lit(int dimacs) {
+        return Literal.fromDimacs(dimacs);
+    }
+
+    @Test
+    public void assumptionsOnlyHoldForOneCall() {
+        CDCLSolver solver = new CDCLSolver(3, new SolverOptions());
+        assertTrue(solver.addClause(lit(1), lit(2)));
+        assertTrue(solver.addClause(lit(-1), lit(3)));
+
+        assertTrue(solver.solve(lit(-2)));
+        assertTrue(solver.modelValue(1));
+        assertTrue(solver.modelValue(3));
+
+        // !x2 forces x1 and then x3
+        assertFalse(solver.solve(lit(-2), lit(-3)));
+        assertTrue(solver.solve());
+    }
+
+    @Test
+    public void clausesAddedBetweenCallsAreKept() {
+        CDCLSolver solver = new CDCLSolver(3, new SolverOptions());
+        assertTrue(solver.addClause(lit(1), lit(2), lit(3)));
+        assertTrue(solver.solve());
+
+        assertTrue(solver.addClause(lit(-1)));
+        assertTrue(solver.addClause(lit(-2)));
+        assertTrue(solver.solve());
+        assertTrue(solver.modelValue(3));
+
+        assertFalse(solver.addClause(lit(-3)));
+        assertFalse(solver.solve());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownVariables() {
+        CDCLSolver solver = new CDCLSolver(2, new SolverOptions());
+        solver.addClause(lit(1), lit(3));
+    }
+}
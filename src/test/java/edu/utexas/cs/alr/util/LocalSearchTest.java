@@ -0,0 +1,132 @@
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.Expr;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static edu.utexas.cs.alr.ast.ExprFactory.*;
+import static org.junit.Assert.*;
+
+public class LocalSearchTest {
+    private static final int NUM_VARIABLES = 100;
+    private static final int NUM_CLAUSES = 400;
+
+    // Random 3-SAT clauses that the hidden assignment satisfies, so the formula
+    // is satisfiable but the search does not know a model
+    private static Expr plantedFormula(boolean[] hidden, long seed) {
+        Random random = new Random(seed);
+        for (int variable = 1; variable <= NUM_VARIABLES; variable++) {
+            hidden[variable] = random.nextBoolean();
+        }
+        Expr formula = null;
+        int added = 0;
+        while (added < NUM_CLAUSES) {
+            int[] variables = new int[3];
+            boolean[] negated = new boolean[3];
+            boolean satisfied = false;
+            for (int k = 0; k < 3; k++) {
+                variables[k] = 1 + random.nextInt(NUM_VARIABLES);
+                negated[k] = random.nextBoolean();
+                satisfied |= hidden[variables[k]] != negated[k];
+            }
+            if (!satisfied) {
+                continue;
+            }
+            Expr clause = literal(variables[0], negated[0]);
+            for (int k = 1; k < 3; k++) {
+                clause = mkOR(clause, literal(variables[k], negated[k]));
+            }
+            formula = formula == null ? clause : mkAND(clause, formula);
+            added++;
+        }
+        return formula;
+    }
+
+    private static Expr literal(int variable, boolean negated) {
+        return negated ? mkNEG(mkVAR(variable)) : mkVAR(variable);
+    }
+
+    // every pigeon sits in a hole and no hole holds two, unsatisfiable for more pigeons than holes
+    private static Expr pigeonhole(int pigeons, int holes) {
+        Expr formula = null;
+        for (int i = 0; i < pigeons; i++) {
+            Expr clause = mkVAR(i * holes + 1);
+            for (int j = 1; j < holes; j++) {
+                clause = mkOR(clause, mkVAR(i * holes + j + 1));
+            }
+            formula = formula == null ? clause : mkAND(clause, formula);
+        }
+        for (int j = 0; j < holes; j++) {
+            for (int i = 0; i < pigeons; i++) {
+                for (int other = i + 1; other < pigeons; other++) {
+                    formula = mkAND(mkOR(mkNEG(mkVAR(i * holes + j + 1)), mkNEG(mkVAR(other * holes + j + 1))), formula);
+                }
+            }
+        }
+        return formula;
+    }
+
+    private static boolean[] bestModel(LocalSearch search) {
+        boolean[] model = new boolean[NUM_VARIABLES + 1];
+        for (int variable = 1; variable <= NUM_VARIABLES; variable++) {
+            model[variable] = search.bestValue(variable);
+        }
+        return model;
+    }
+
+    @Test
+    public void modelsSatisfyTheFormula() {
+        for (boolean probSat : new boolean[] { true, false }) {
+            for (long seed = 1; seed <= 3; seed++) {
+                Expr formula = plantedFormula(new boolean[NUM_VARIABLES + 1], seed);
+                ClauseArena clauses = CNFConverter.convertToClauses(formula);
+                LocalSearch search = new LocalSearch(clauses, NUM_VARIABLES, probSat, seed);
+                assertTrue(search.run(1000000));
+                assertEquals(0, search.getBestUnsatisfied());
+                assertTrue(new ModelEvaluator(formula).satisfies(bestModel(search)));
+            }
+        }
+    }
+
+    @Test
+    public void startsFromTheGivenAssignment() {
+        boolean[] hidden = new boolean[NUM_VARIABLES + 1];
+        Expr formula = plantedFormula(hidden, 4);
+        LocalSearch search = new LocalSearch(CNFConverter.convertToClauses(formula), NUM_VARIABLES, true, 4);
+        for (int variable = 1; variable <= NUM_VARIABLES; variable++) {
+            search.setValue(variable, hidden[variable]);
+        }
+        assertTrue(search.run(0));
+        assertEquals(0, search.getFlips());
+        assertTrue(new ModelEvaluator(formula).satisfies(bestModel(search)));
+    }
+
+    @Test
+    public void keepsTheBestAssignmentOfAnUnsatisfiableFormula() {
+        // x1 & !x1 & (x1 | x2): one clause always stays unsatisfied
+        Expr formula = mkAND(mkVAR(1), mkAND(mkNEG(mkVAR(1)), mkOR(mkVAR(1), mkVAR(2))));
+        LocalSearch search = new LocalSearch(CNFConverter.convertToClauses(formula), 2, false, 1);
+        assertFalse(search.run(1000));
+        assertEquals(1000, search.getFlips());
+        assertEquals(1, search.getBestUnsatisfied());
+    }
+
+    @Test
+    public void searchAloneHandsOverToCdclWhenTheFlipsRunOut() {
+        SolverOptions options = new SolverOptions();
+        options.localSearch = "alone";
+        options.localSearchFlips = 1000;
+        // without simplification the pigeonhole clauses reach local search
+        options.eliminate = false;
+        options.substitute = false;
+        options.subsume = false;
+        assertNull(SatUtil.findModel(pigeonhole(4, 3), options));
+
+        options.localSearchFlips = 0;
+        Expr formula = plantedFormula(new boolean[NUM_VARIABLES + 1], 5);
+        boolean[] model = SatUtil.findModel(formula, options);
+        assertNotNull(model);
+        assertTrue(new ModelEvaluator(formula).satisfies(model));
+    }
+}
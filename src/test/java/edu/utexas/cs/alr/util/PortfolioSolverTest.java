@@ -0,0 +1,82 @@
+package edu.utexas.cs.alr.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PortfolioSolverTest {
+    private static final int HOLES = 5;
+
+    // Pigeonhole clauses, unsatisfiable for more pigeons than holes but not by
+    // unit propagation alone
+    private static ClauseArena pigeonhole(int pigeons) {
+        ClauseArena arena = new ClauseArena();
+        for (int i = 0; i < pigeons; i++) {
+            int[] clause = new int[HOLES];
+            for (int j = 0; j < HOLES; j++) {
+                clause[j] = Literal.of(i * HOLES + j + 1, false);
+            }
+            arena.allocate(clause, clause.length, false);
+        }
+        for (int j = 0; j < HOLES; j++) {
+            for (int i = 0; i < pigeons; i++) {
+                for (int other = i + 1; other < pigeons; other++) {
+                    int[] clause = { Literal.of(i * HOLES + j + 1, true), Literal.of(other * HOLES + j + 1, true) };
+                    arena.allocate(clause, clause.length, false);
+                }
+            }
+        }
+        return arena;
+    }
+
+    private static SolverOptions threads(int threads) {
+        SolverOptions options = new SolverOptions();
+        options.threads = threads;
+        options.vivify = "all";
+        return options;
+    }
+
+    @Test
+    public void workersOnlyReadTheSharedArena() {
+        ClauseArena arena = pigeonhole(HOLES + 1);
+        arena.freeze();
+        int[] before = Arrays.copyOf(arena.memory, arena.end());
+        assertFalse(new PortfolioSolver(arena, threads(3)).solve());
+        assertArrayEquals(before, Arrays.copyOf(arena.memory, arena.end()));
+
+        assertFalse(new CubeAndConquer(arena, threads(2)).solve());
+        assertArrayEquals(before, Arrays.copyOf(arena.memory, arena.end()));
+    }
+
+    @Test
+    public void layersFindModelsOfTheSharedClauses() {
+        ClauseArena arena = pigeonhole(HOLES);
+        arena.freeze();
+        for (long seed = 1; seed <= 3; seed++) {
+            SolverOptions options = new SolverOptions();
+            options.seed = seed;
+            ClauseArena layer = new ClauseArena(arena);
+            CDCLSolver solver = new CDCLSolver(layer, options);
+            assertTrue(solver.solve());
+            // the layer presents each clause with its watched literals first
+            for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+                boolean satisfied = false;
+                for (int k = 0; k < layer.size(cref); k++) {
+                    int literal = layer.literal(cref, k);
+                    assertTrue(arena.containsLiteral(cref, literal));
+                    satisfied |= solver.modelValue(Literal.variable(literal)) != Literal.isNegated(literal);
+                }
+                assertTrue(satisfied);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void frozenArenaCannotBeChanged() {
+        ClauseArena arena = pigeonhole(HOLES);
+        arena.freeze();
+        arena.allocate(new int[] { Literal.of(1, false) }, 1, false);
+    }
+}
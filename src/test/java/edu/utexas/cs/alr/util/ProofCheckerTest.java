@@ -0,0 +1,107 @@
+package edu.utexas.cs.alr.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProofCheckerTest {
+    private static final int HOLES = 4;
+    private static final int PIGEONS = HOLES + 1;
+    private static final int NUM_VARIABLES = PIGEONS * HOLES;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Pigeonhole clauses, unsatisfiable but not by unit propagation alone
+    private static ClauseArena pigeonhole() {
+        ClauseArena arena = new ClauseArena();
+        for (int i = 0; i < PIGEONS; i++) {
+            int[] clause = new int[HOLES];
+            for (int j = 0; j < HOLES; j++) {
+                clause[j] = Literal.of(i * HOLES + j + 1, false);
+            }
+            arena.allocate(clause, clause.length, false);
+        }
+        for (int j = 0; j < HOLES; j++) {
+            for (int i = 0; i < PIGEONS; i++) {
+                for (int other = i + 1; other < PIGEONS; other++) {
+                    int[] clause = { Literal.of(i * HOLES + j + 1, true), Literal.of(other * HOLES + j + 1, true) };
+                    arena.allocate(clause, clause.length, false);
+                }
+            }
+        }
+        return arena;
+    }
+
+    // Solves the pigeonhole clauses with the proof logged to path, and returns
+    // a checker that knows the clauses as they were before solving
+    private static ProofChecker solveWithProof(Path path, boolean binary, boolean lrat) throws IOException {
+        ClauseArena arena = pigeonhole();
+        ProofChecker checker = new ProofChecker(arena, NUM_VARIABLES);
+        try (DratProof proof = new DratProof(path.toString(), binary, lrat)) {
+            arena.logProof(proof);
+            assertFalse(new CDCLSolver(arena, new SolverOptions()).solve());
+        }
+        return checker;
+    }
+
+    private static void writeLines(Path path, List<String> lines) throws IOException {
+        Files.write(path, lines, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void acceptsDratProofs() throws IOException {
+        for (boolean binary : new boolean[] { true, false }) {
+            Path path = folder.newFile().toPath();
+            ProofChecker checker = solveWithProof(path, binary, false);
+            assertTrue(checker.getError(), checker.checkDrat(path.toString(), binary));
+            assertTrue(checker.getCheckedLemmas() > 0);
+        }
+    }
+
+    @Test
+    public void acceptsLratProofs() throws IOException {
+        for (boolean binary : new boolean[] { true, false }) {
+            Path path = folder.newFile().toPath();
+            ProofChecker checker = solveWithProof(path, binary, true);
+            assertTrue(checker.getError(), checker.checkLrat(path.toString(), binary, 2));
+            assertTrue(checker.getCheckedLemmas() > 0);
+        }
+    }
+
+    @Test
+    public void rejectsDratProofWithoutLemmas() throws IOException {
+        Path path = folder.newFile().toPath();
+        ProofChecker checker = solveWithProof(path, false, false);
+        // only the empty clause is left, propagation alone does not refute the formula
+        writeLines(path, Collections.singletonList("0"));
+        assertFalse(checker.checkDrat(path.toString(), false));
+        assertNotNull(checker.getError());
+    }
+
+    @Test
+    public void rejectsLratProofWithWrongHints() throws IOException {
+        Path path = folder.newFile().toPath();
+        ProofChecker checker = solveWithProof(path, false, true);
+        List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+        // the empty clause is the last addition, point its hints at an original clause only
+        int emptyClause = lines.size() - 1;
+        while (emptyClause >= 0 && !lines.get(emptyClause).matches("\\d+ 0 .*")) {
+            emptyClause--;
+        }
+        assertTrue(emptyClause >= 0);
+        lines.set(emptyClause, lines.get(emptyClause).split(" ")[0] + " 0 1 0");
+        writeLines(path, lines);
+        assertFalse(checker.checkLrat(path.toString(), false, 2));
+        assertNotNull(checker.getError());
+    }
+}
@@ -0,0 +1,103 @@
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.*;
+import org.junit.Test;
+
+import static edu.utexas.cs.alr.ast.ExprFactory.*;
+import static org.junit.Assert.*;
+
+public class SubstitutionTest {
+    private static final int CYCLE = 5;
+    private static final int Y = 2 * CYCLE + 1;
+    private static final int Z = Y + 1;
+
+    // the implications x1 -> x2 -> ... -> xn -> x1 as binary clauses
+    private static Expr cycle(int first, int length) {
+        Expr formula = mkOR(mkNEG(mkVAR(first + length - 1)), mkVAR(first));
+        for (int variable = first; variable < first + length - 1; variable++) {
+            formula = mkAND(mkOR(mkNEG(mkVAR(variable)), mkVAR(variable + 1)), formula);
+        }
+        return formula;
+    }
+
+    // Two cycles whose variables are equivalent among themselves, and linked
+    // so that the second is the negation of the first. The ternary clauses
+    // over y and z keep some clauses on the cycles after substitution
+    private static Expr linkedCycles() {
+        Expr formula = mkAND(cycle(1, CYCLE), cycle(CYCLE + 1, CYCLE));
+        formula = mkAND(formula, mkAND(mkOR(mkVAR(1), mkVAR(CYCLE + 1)), mkOR(mkNEG(mkVAR(1)), mkNEG(mkVAR(CYCLE + 1)))));
+        formula = mkAND(formula, mkOR(mkOR(mkVAR(3), mkVAR(Y)), mkVAR(Z)));
+        formula = mkAND(formula, mkOR(mkOR(mkNEG(mkVAR(Y)), mkNEG(mkVAR(Z))), mkVAR(CYCLE + 2)));
+        formula = mkAND(formula, mkOR(mkOR(mkNEG(mkVAR(4)), mkVAR(Y)), mkNEG(mkVAR(Z))));
+        return formula;
+    }
+
+    // the value of the formula under the assignment indexed by variable id
+    private static boolean satisfies(Expr e, boolean[] model) {
+        switch (e.getKind()) {
+            case VAR:
+                return model[(int) ((VarExpr) e).getId()];
+            case NEG:
+                return !satisfies(((NegExpr) e).getExpr(), model);
+            case AND:
+                return satisfies(((AndExpr) e).getLeft(), model) && satisfies(((AndExpr) e).getRight(), model);
+            case OR:
+                return satisfies(((OrExpr) e).getLeft(), model) || satisfies(((OrExpr) e).getRight(), model);
+            case IMPL:
+                return !satisfies(((ImplExpr) e).getAntecedent(), model) || satisfies(((ImplExpr) e).getConsequent(), model);
+            default:
+                return satisfies(((EquivExpr) e).getLeft(), model) == satisfies(((EquivExpr) e).getRight(), model);
+        }
+    }
+
+    // number of variables of the cycles that occur in some clause of the arena
+    private static int occurringCycleVariables(ClauseArena arena) {
+        boolean[] occurs = new boolean[2 * CYCLE + 1];
+        int count = 0;
+        for (int cref = 0; cref < arena.end(); cref = arena.next(cref)) {
+            if (arena.isDeleted(cref)) {
+                continue;
+            }
+            for (int i = 0; i < arena.size(cref); i++) {
+                int variable = Literal.variable(arena.literal(cref, i));
+                if (variable <= 2 * CYCLE && !occurs[variable]) {
+                    occurs[variable] = true;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void cyclesCollapseToOneVariable() {
+        ClauseArena clauses = CNFConverter.convertToClauses(linkedCycles());
+        assertTrue(new EquivalenceSubstituter(clauses, Z).substitute());
+        assertEquals(1, occurringCycleVariables(clauses));
+    }
+
+    @Test
+    public void modelsSatisfyTheOriginalFormula() {
+        Expr formula = linkedCycles();
+        for (boolean eliminate : new boolean[] { true, false }) {
+            SolverOptions options = new SolverOptions();
+            options.eliminate = eliminate;
+            boolean[] model = SatUtil.findModel(formula, options);
+            assertNotNull(model);
+            assertTrue(satisfies(formula, model));
+            for (int k = 0; k < CYCLE; k++) {
+                assertEquals(model[1], model[1 + k]);
+                assertEquals(!model[1], model[CYCLE + 1 + k]);
+            }
+        }
+    }
+
+    @Test
+    public void cycleThroughANegationIsUnsatisfiable() {
+        // x1 -> x2 -> x3 -> x1 and x1 <-> !x2
+        Expr formula = mkAND(cycle(1, 3), mkAND(mkOR(mkVAR(1), mkVAR(2)), mkOR(mkNEG(mkVAR(1)), mkNEG(mkVAR(2)))));
+        ClauseArena clauses = CNFConverter.convertToClauses(formula);
+        assertFalse(new EquivalenceSubstituter(clauses, 3).substitute());
+        assertNull(SatUtil.findModel(formula, new SolverOptions()));
+    }
+}
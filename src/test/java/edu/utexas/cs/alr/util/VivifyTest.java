@@ -0,0 +1,113 @@
+package edu.utexas.cs.alr.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class VivifyTest {
+    private static final int HOLES = 8;
+    private static final int PIGEONS = HOLES + 1;
+    private static final int A = PIGEONS * HOLES + 1;
+    private static final int B = A + 1;
+    private static final int C = A + 2;
+    private static final int D = A + 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void add(ClauseArena arena, int... dimacs) {
+        int[] clause = new int[dimacs.length];
+        for (int k = 0; k < dimacs.length; k++) {
+            clause[k] = Literal.fromDimacs(dimacs[k]);
+        }
+        arena.allocate(clause, clause.length, false);
+    }
+
+    // Pigeonhole clauses, which take enough conflicts for inprocessing to run,
+    // next to (a | b | c) whose last literal is redundant: !a and !b already
+    // conflict through (a | b | d) and (a | b | !d). The last clause only makes
+    // sure that no literal of the gadget is pure
+    private static ClauseArena pigeonholeWithRedundantLiteral() {
+        ClauseArena arena = new ClauseArena();
+        for (int i = 0; i < PIGEONS; i++) {
+            int[] clause = new int[HOLES];
+            for (int j = 0; j < HOLES; j++) {
+                clause[j] = i * HOLES + j + 1;
+            }
+            add(arena, clause);
+        }
+        for (int j = 0; j < HOLES; j++) {
+            for (int i = 0; i < PIGEONS; i++) {
+                for (int other = i + 1; other < PIGEONS; other++) {
+                    add(arena, -(i * HOLES + j + 1), -(other * HOLES + j + 1));
+                }
+            }
+        }
+        add(arena, A, B, C);
+        add(arena, A, B, D);
+        add(arena, A, B, -D);
+        add(arena, -A, -B, -C);
+        return arena;
+    }
+
+    // the DIMACS literals of a text DRAT line, without the deletion mark and the final 0
+    private static Set<Integer> literals(String line) {
+        Set<Integer> literals = new HashSet<>();
+        for (String token : line.replace("d ", "").trim().split(" +")) {
+            if (!token.equals("0")) {
+                literals.add(Integer.parseInt(token));
+            }
+        }
+        return literals;
+    }
+
+    @Test
+    public void removesRedundantLastLiteral() throws IOException {
+        Set<Integer> clause = new HashSet<>();
+        clause.add(A);
+        clause.add(B);
+        clause.add(C);
+        Set<Integer> shortened = new HashSet<>(clause);
+        shortened.remove(C);
+
+        SolverOptions options = new SolverOptions();
+        options.subsume = false;
+        options.vivify = "all";
+        ClauseArena arena = pigeonholeWithRedundantLiteral();
+        ProofChecker checker = new ProofChecker(arena, D);
+        Path path = folder.newFile().toPath();
+        CDCLSolver solver;
+        try (DratProof proof = new DratProof(path.toString(), false, false)) {
+            arena.logProof(proof);
+            solver = new CDCLSolver(arena, options);
+            assertFalse(solver.solve());
+        }
+        assertTrue(solver.getStats().inprocessings > 0);
+
+        // vivification adds (a | b) and deletes (a | b | c), nothing else deletes an original clause
+        List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+        int added = -1;
+        int deleted = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (added < 0 && !line.startsWith("d") && literals(line).equals(shortened)) {
+                added = i;
+            } else if (deleted < 0 && line.startsWith("d") && literals(line).equals(clause)) {
+                deleted = i;
+            }
+        }
+        assertTrue(added >= 0);
+        assertTrue(deleted > added);
+        assertTrue(checker.getError(), checker.checkDrat(path.toString(), false));
+    }
+}